@@ -0,0 +1,228 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Annotation processor writing the {@code RestResultIndex} of the compiled classes
+ *
+ * <p>Shipped apart from the starter and only run by javac in the rounds holding {@code @UseRestResult} or
+ * {@code @IgnoreRestResult}. Controllers and the classes using either annotation are indexed, and entries of the
+ * classes not compiled again are kept from the previous index. A partial build compiling none of the annotations
+ * leaves the index as it was.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class RestResultIndexProcessor extends AbstractProcessor {
+
+    private static final String CONTROLLER = "org.springframework.stereotype.Controller";
+
+    private static final String USE_REST_RESULT = "com.lihansir.platform.starter.annotation.UseRestResult";
+
+    private static final String IGNORE_REST_RESULT = "com.lihansir.platform.starter.annotation.IgnoreRestResult";
+
+    /**
+     * Same values as the {@code RestResultIndex} constants, the processor does not depend on the starter
+     */
+    private static final String INDEX_LOCATION = "META-INF/rest-result.index";
+
+    private static final String USE = "use";
+
+    private static final String IGNORE = "ignore";
+
+    private final Map<String, String> entries = new TreeMap<>();
+
+    private final Set<String> compiledTypes = new HashSet<>();
+
+    private Elements elements;
+
+    private Types types;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new HashSet<>(Arrays.asList(USE_REST_RESULT, IGNORE_REST_RESULT));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                index((TypeElement)element);
+            }
+        }
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void index(TypeElement type) {
+        String typeName = elements.getBinaryName(type).toString();
+        compiledTypes.add(typeName);
+        boolean indexed = isController(type, new HashSet<>());
+        boolean use = hasAnnotation(type, USE_REST_RESULT);
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.METHOD) {
+                String flags = flags(enclosed);
+                if (!flags.isEmpty()) {
+                    entries.put(methodKey(typeName, (ExecutableElement)enclosed), flags);
+                    indexed = true;
+                }
+            } else if (enclosed instanceof TypeElement) {
+                index((TypeElement)enclosed);
+            }
+        }
+        if (indexed || use) {
+            entries.put(typeName, use ? USE : "");
+        }
+    }
+
+    private String flags(Element element) {
+        boolean use = hasAnnotation(element, USE_REST_RESULT);
+        boolean ignore = hasAnnotation(element, IGNORE_REST_RESULT);
+        if (use && ignore) {
+            return USE + ',' + IGNORE;
+        }
+        return use ? USE : ignore ? IGNORE : "";
+    }
+
+    private static boolean hasAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement)annotation.getAnnotationType().asElement()).getQualifiedName()
+                    .contentEquals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a type is annotated with {@code @Controller}, directly or through a composed annotation
+     */
+    private static boolean isController(Element element, Set<Element> visited) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement)annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(CONTROLLER)) {
+                return true;
+            }
+            if (visited.add(annotationType) && isController(annotationType, visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String methodKey(String typeName, ExecutableElement method) {
+        StringBuilder key = new StringBuilder(128).append(typeName).append('#').append(method.getSimpleName())
+                .append('(');
+        boolean first = true;
+        for (VariableElement parameter : method.getParameters()) {
+            if (!first) {
+                key.append(',');
+            }
+            appendTypeName(key, types.erasure(parameter.asType()));
+            first = false;
+        }
+        return key.append(')').toString();
+    }
+
+    private void appendTypeName(StringBuilder key, TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            appendTypeName(key, types.erasure(((ArrayType)type).getComponentType()));
+            key.append("[]");
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            key.append(elements.getBinaryName((TypeElement)((DeclaredType)type).asElement()));
+        } else {
+            key.append(type.toString());
+        }
+    }
+
+    private void writeIndex() {
+        Filer filer = processingEnv.getFiler();
+        Map<String, String> index = new TreeMap<>(readPreviousIndex(filer));
+        index.keySet().removeIf(key -> {
+            String typeName = key.indexOf('#') < 0 ? key : key.substring(0, key.indexOf('#'));
+            return compiledTypes.contains(typeName)
+                    || elements.getTypeElement(typeName.replace('$', '.')) == null;
+        });
+        index.putAll(entries);
+        if (index.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.ISO_8859_1)) {
+                for (Map.Entry<String, String> entry : index.entrySet()) {
+                    writer.write(entry.getKey());
+                    writer.write('=');
+                    writer.write(entry.getValue());
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write the unified response index", e);
+        }
+    }
+
+    private static Map<String, String> readPreviousIndex(Filer filer) {
+        Map<String, String> previous = new TreeMap<>();
+        try {
+            FileObject file = filer.getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            Properties properties = new Properties();
+            try (InputStream in = file.openInputStream()) {
+                properties.load(in);
+            }
+            for (String key : properties.stringPropertyNames()) {
+                previous.put(key, properties.getProperty(key));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // No previous index
+        }
+        return previous;
+    }
+
+}
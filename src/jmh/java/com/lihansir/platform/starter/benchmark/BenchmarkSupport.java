@@ -0,0 +1,197 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.benchmark;
+
+import com.lihansir.platform.starter.annotation.IgnoreRestResult;
+import com.lihansir.platform.starter.annotation.UseRestResult;
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import com.lihansir.platform.starter.context.RestResultHolder;
+import com.lihansir.platform.starter.context.TraceIdGenerator;
+import com.lihansir.platform.starter.handler.ExceptionLogger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.ReflectionUtils;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Fixtures shared by the benchmarks
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+final class BenchmarkSupport {
+
+    /**
+     * Fill the request context the way the trace id filter does
+     */
+    static void initContext() {
+        RestResultHolder.setTraceId(TraceIdGenerator.generate());
+        RestResultHolder.setHost("127.0.0.1");
+    }
+
+    /**
+     * Exception logger with logging switched off, so the handler cost is measured apart from the appenders
+     *
+     * @return exception logger
+     */
+    static ExceptionLogger silentExceptionLogger() {
+        RestResultProperties.ExceptionLog properties = new RestResultProperties.ExceptionLog();
+        properties.getDefaultPolicy().setLevel(LogLevel.OFF);
+        properties.getPolicies().clear();
+        return new ExceptionLogger(LoggerFactory.getLogger(BenchmarkSupport.class), properties);
+    }
+
+    static MethodParameter returnType(String methodName) {
+        Method method = ReflectionUtils.findMethod(SampleController.class, methodName);
+        return new MethodParameter(Objects.requireNonNull(method), -1);
+    }
+
+    static List<Item> payload(int size) {
+        List<Item> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(new Item(i, "item-" + i, i * 1.5D, i % 2 == 0));
+        }
+        return items;
+    }
+
+    private BenchmarkSupport() {}
+
+    /**
+     * Response writing into a reusable buffer, the mock response copies byte by byte and would dominate the figures
+     */
+    static final class ResponseSink extends HttpServletResponseWrapper {
+
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream(64 * 1024);
+
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {}
+
+            @Override
+            public void write(int b) {
+                content.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                content.write(b, off, len);
+            }
+
+        };
+
+        ResponseSink() {
+            super(new MockHttpServletResponse());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            content.reset();
+        }
+
+        int size() {
+            return content.size();
+        }
+
+    }
+
+    /**
+     * Handler methods whose return types drive the wrapping decisions
+     */
+    @UseRestResult
+    static class SampleController {
+
+        public List<Item> wrapped() {
+            return null;
+        }
+
+        @IgnoreRestResult
+        public List<Item> unwrapped() {
+            return null;
+        }
+
+        public String text() {
+            return null;
+        }
+
+    }
+
+    /**
+     * Row of a typical list payload, a plain bean every serializer can analyze
+     */
+    public static class Item {
+
+        private long id;
+
+        private String name;
+
+        private double amount;
+
+        private boolean enabled;
+
+        public Item() {}
+
+        Item(long id, String name, double amount, boolean enabled) {
+            this.id = id;
+            this.name = name;
+            this.amount = amount;
+            this.enabled = enabled;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public void setAmount(double amount) {
+            this.amount = amount;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.benchmark;
+
+import com.lihansir.platform.starter.context.RestResultContextMode;
+import com.lihansir.platform.starter.context.RestResultHolder;
+import com.lihansir.platform.starter.context.TraceIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Context cost of many short-lived threads per context mode, each task running on a thread of its own. Virtual
+ * threads are used when the JDK provides them, platform threads started in batches otherwise. Compare the
+ * {@code gc.alloc.rate.norm} figures of the gc profiler between the modes
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ContextModeBenchmark {
+
+    private static final int PLATFORM_BATCH = 1000;
+
+    @Param({"THREAD_LOCAL", "SNAPSHOT"})
+    private RestResultContextMode mode;
+
+    @Param({"100000"})
+    private int tasks;
+
+    private ExecutorService virtualThreads;
+
+    private final String traceId = TraceIdGenerator.generate();
+
+    private final LongAdder completed = new LongAdder();
+
+    @Setup
+    public void setUp() {
+        RestResultHolder.setMode(mode);
+        try {
+            virtualThreads = (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            virtualThreads = null;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (virtualThreads != null) {
+            virtualThreads.shutdownNow();
+        }
+        RestResultHolder.setMode(RestResultContextMode.THREAD_LOCAL);
+    }
+
+    @Benchmark
+    public long shortLivedThreads() throws Exception {
+        if (virtualThreads != null) {
+            List<Future<?>> futures = new ArrayList<>(tasks);
+            for (int i = 0; i < tasks; i++) {
+                futures.add(virtualThreads.submit(this::request));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } else {
+            Thread[] threads = new Thread[PLATFORM_BATCH];
+            for (int started = 0; started < tasks; started += PLATFORM_BATCH) {
+                int batch = Math.min(PLATFORM_BATCH, tasks - started);
+                for (int i = 0; i < batch; i++) {
+                    threads[i] = new Thread(this::request);
+                    threads[i].start();
+                }
+                for (int i = 0; i < batch; i++) {
+                    threads[i].join();
+                }
+            }
+        }
+        return completed.sumThenReset();
+    }
+
+    /**
+     * What a request does with the context: filled by the filter, read by the envelope, cleared at the end
+     */
+    private void request() {
+        RestResultHolder.setTraceId(traceId);
+        RestResultHolder.setHost("127.0.0.1");
+        if (RestResultHolder.current().getTraceId().length() > 0) {
+            completed.increment();
+        }
+        RestResultHolder.remove();
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.benchmark;
+
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import com.lihansir.platform.starter.context.RestResultHolder;
+import com.lihansir.platform.starter.converter.EncodedResponseWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a wrapped response written around its encoded data: without etag or compression, with an etag, gzip
+ * compressed, and answered with 304 for a client already holding the data
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodedResponseBenchmark {
+
+    @Param({"1", "1000"})
+    private int payloadSize;
+
+    @Param({"plain", "etag", "gzip", "notModified"})
+    private String mode;
+
+    private EncodedResponseWriter writer;
+
+    private ServletServerHttpRequest request;
+
+    private List<BenchmarkSupport.Item> payload;
+
+    private final BenchmarkSupport.ResponseSink sink = new BenchmarkSupport.ResponseSink();
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkSupport.initContext();
+        RestResultProperties.Etag etag = new RestResultProperties.Etag();
+        etag.setEnabled(!"plain".equals(mode));
+        RestResultProperties.Compression compression = new RestResultProperties.Compression();
+        compression.setEnabled("gzip".equals(mode));
+        writer = new EncodedResponseWriter(etag, compression);
+        payload = BenchmarkSupport.payload(payloadSize);
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/items");
+        servletRequest.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+        request = new ServletServerHttpRequest(servletRequest);
+        if ("notModified".equals(mode)) {
+            write();
+            servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, sink.getHeader(HttpHeaders.ETAG));
+        }
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        sink.reset();
+        writer.write(payload, request, new ServletServerHttpResponse(sink), RestResultHolder.current());
+        return sink.size();
+    }
+
+}
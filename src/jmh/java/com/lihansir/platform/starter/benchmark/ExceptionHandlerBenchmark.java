@@ -0,0 +1,155 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.benchmark;
+
+import com.lihansir.platform.common.code.CommonCode;
+import com.lihansir.platform.common.exception.BusinessException;
+import com.lihansir.platform.common.exception.ParamException;
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import com.lihansir.platform.starter.converter.RestResultHttpMessageConverter;
+import com.lihansir.platform.starter.handler.ExceptionMappingRegistry;
+import com.lihansir.platform.starter.handler.GlobalExceptionHandler;
+import com.lihansir.platform.starter.handler.NotFoundHandler;
+import com.lihansir.platform.starter.handler.ValidationErrorAggregator;
+import com.lihansir.platform.starter.metrics.RestResultMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConversionException;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindException;
+import org.springframework.validation.FieldError;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.NoHandlerFoundException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cost of each exception handler including the serialization of its response. The exceptions are created once, so
+ * the stack trace capture of the throwing code is not part of the figures, and logging is switched off
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ExceptionHandlerBenchmark {
+
+    @Param({"business", "param", "missingParameter", "notFound", "bind", "notValid", "notReadable", "servlet",
+        "conversion", "runtime", "illegalArgument", "exception", "mapped"})
+    private String exceptionType;
+
+    private final GlobalExceptionHandler handler =
+        new GlobalExceptionHandler(BenchmarkSupport.silentExceptionLogger(), RestResultMetrics.NONE,
+            new NotFoundHandler(new RestResultProperties.NotFound(), RestResultMetrics.NONE),
+            new ValidationErrorAggregator(),
+            new ExceptionMappingRegistry().register(UnsupportedOperationException.class, CommonCode.SERVLET_ERROR));
+
+    private final RestResultHttpMessageConverter converter = new RestResultHttpMessageConverter();
+
+    private final BenchmarkSupport.ResponseSink sink = new BenchmarkSupport.ResponseSink();
+
+    private Function<GlobalExceptionHandler, Object> invocation;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkSupport.initContext();
+        RequestContextHolder.setRequestAttributes(
+            new ServletRequestAttributes(new MockHttpServletRequest("GET", "/missing"), sink));
+        invocation = invocation(exceptionType);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public int handle() throws IOException {
+        sink.reset();
+        converter.write(invocation.apply(handler), MediaType.APPLICATION_JSON, new ServletServerHttpResponse(sink));
+        return sink.size();
+    }
+
+    private static Function<GlobalExceptionHandler, Object> invocation(String exceptionType) throws Exception {
+        switch (exceptionType) {
+            case "business":
+                BusinessException business = new BusinessException(CommonCode.PARAM_CHECK_ERROR);
+                return handler -> handler.businessException(business);
+            case "param":
+                ParamException param = new ParamException(CommonCode.PARAM_CHECK_ERROR);
+                return handler -> handler.paramException(param);
+            case "missingParameter":
+                MissingServletRequestParameterException missing =
+                    new MissingServletRequestParameterException("id", "Long");
+                return handler -> handler.missingServletRequestParameterException(missing);
+            case "notFound":
+                NoHandlerFoundException notFound = new NoHandlerFoundException("GET", "/missing", new HttpHeaders());
+                return handler -> handler.handlerNoFoundException(notFound);
+            case "bind":
+                BindException bind = new BindException(bindingResult());
+                return handler -> handler.validatedBindException(bind);
+            case "notValid":
+                MethodArgumentNotValidException notValid =
+                    new MethodArgumentNotValidException(BenchmarkSupport.returnType("wrapped"), bindingResult());
+                return handler -> handler.validExceptionHandler(notValid);
+            case "notReadable":
+                HttpMessageNotReadableException notReadable = new HttpMessageNotReadableException("JSON parse error",
+                    new ServletServerHttpRequest(new MockHttpServletRequest()));
+                return handler -> handler.httpMessageNotReadableExceptionHandler(notReadable);
+            case "servlet":
+                HttpRequestMethodNotSupportedException servlet = new HttpRequestMethodNotSupportedException("PATCH");
+                return handler -> handler.servletExceptionHandler(servlet);
+            case "conversion":
+                HttpMessageConversionException conversion = new HttpMessageConversionException("Conversion error");
+                return handler -> handler.httpMessageConversionExceptionHandler(conversion);
+            case "runtime":
+                IllegalStateException runtime = new IllegalStateException("Runtime error");
+                return handler -> handler.runtimeExceptionHandler(runtime);
+            case "illegalArgument":
+                IllegalArgumentException illegalArgument = new IllegalArgumentException("Illegal argument");
+                return handler -> handler.illegalArgumentExceptionHandler(illegalArgument);
+            case "mapped":
+                UnsupportedOperationException mapped = new UnsupportedOperationException("Mapped error");
+                return handler -> handler.runtimeExceptionHandler(mapped);
+            default:
+                Exception exception = new Exception("Checked error");
+                return handler -> handler.handleException(exception);
+        }
+    }
+
+    private static BeanPropertyBindingResult bindingResult() {
+        BeanPropertyBindingResult bindingResult =
+            new BeanPropertyBindingResult(BenchmarkSupport.payload(1).get(0), "item");
+        bindingResult.addError(new FieldError("item", "name", "must not be blank"));
+        bindingResult.addError(new FieldError("item", "amount", "must be greater than 0"));
+        return bindingResult;
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.benchmark;
+
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import com.lihansir.platform.starter.handler.NotFoundHandler;
+import com.lihansir.platform.starter.metrics.RestResultMetrics;
+import com.lihansir.platform.starter.resolver.GlobalErrorViewResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the 404 path through the error view resolver, from the error attributes to the rendered response, for a
+ * client within its rate and for a throttled one
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class NotFoundBenchmark {
+
+    @Param({"tracked", "throttled"})
+    private String client;
+
+    private GlobalErrorViewResolver resolver;
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/error");
+
+    private final Map<String, Object> model = new LinkedHashMap<>();
+
+    private final BenchmarkSupport.ResponseSink sink = new BenchmarkSupport.ResponseSink();
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.initContext();
+        RestResultProperties.NotFound properties = new RestResultProperties.NotFound();
+        if ("tracked".equals(client)) {
+            properties.setClientPermitsPerSecond(0);
+        } else {
+            properties.setClientPermitsPerSecond(0.001);
+            properties.setClientBurst(1);
+        }
+        resolver = new GlobalErrorViewResolver(new NotFoundHandler(properties, RestResultMetrics.NONE));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, sink));
+        model.put("status", HttpStatus.NOT_FOUND.value());
+        model.put("error", HttpStatus.NOT_FOUND.getReasonPhrase());
+        model.put("path", "/api/v1/orders/42/items");
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public int notFound() throws Exception {
+        sink.reset();
+        ModelAndView modelAndView = resolver.resolveErrorView(request, HttpStatus.NOT_FOUND, model);
+        modelAndView.getView().render(modelAndView.getModel(), request, sink);
+        return sink.size();
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.benchmark;
+
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.support.spring.FastJsonHttpMessageConverter;
+import com.lihansir.platform.common.rest.RestResult;
+import com.lihansir.platform.starter.advice.RestResultHandlerAdvice;
+import com.lihansir.platform.starter.converter.RestResultHttpMessageConverter;
+import com.lihansir.platform.starter.serializer.RestResultSerializers;
+import com.lihansir.platform.starter.serializer.SerializerType;
+import com.lihansir.platform.starter.utils.CommonUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the unified response per request: wrapped against unwrapped bodies, small against large payloads, and the
+ * String return path against the former {@code JSONObject.toJSONString} one, per serializer of the starter
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseWrapBenchmark {
+
+    @Param({"1", "1000"})
+    private int payloadSize;
+
+    @Param({"JACKSON", "FASTJSON2", "FASTJSON", "DSL_JSON"})
+    private SerializerType serializer;
+
+    private final RestResultHandlerAdvice advice = new RestResultHandlerAdvice();
+
+    private final RestResultHttpMessageConverter restResultConverter = new RestResultHttpMessageConverter();
+
+    private final FastJsonHttpMessageConverter fastJsonConverter = new FastJsonHttpMessageConverter();
+
+    private final StringHttpMessageConverter stringConverter = new StringHttpMessageConverter(StandardCharsets.UTF_8);
+
+    private final MethodParameter wrapped = BenchmarkSupport.returnType("wrapped");
+
+    private final MethodParameter unwrapped = BenchmarkSupport.returnType("unwrapped");
+
+    private final MethodParameter text = BenchmarkSupport.returnType("text");
+
+    private final BenchmarkSupport.ResponseSink sink = new BenchmarkSupport.ResponseSink();
+
+    private ServletServerHttpRequest request;
+
+    private List<BenchmarkSupport.Item> payload;
+
+    private String textPayload;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.initContext();
+        RestResultSerializers.set(RestResultSerializers.create(serializer, null));
+        request = new ServletServerHttpRequest(new MockHttpServletRequest("GET", "/items"));
+        payload = BenchmarkSupport.payload(payloadSize);
+        textPayload = JSONObject.toJSONString(payload);
+    }
+
+    @Benchmark
+    public int wrapped() throws IOException {
+        return write(wrapped, payload);
+    }
+
+    @Benchmark
+    public int unwrapped() throws IOException {
+        return write(unwrapped, payload);
+    }
+
+    @Benchmark
+    public int stringReturn() throws IOException {
+        return write(text, textPayload);
+    }
+
+    /**
+     * The String return path before the envelope was written straight into the response
+     */
+    @Benchmark
+    public int stringReturnLegacy() throws IOException {
+        sink.reset();
+        RestResult<Object> envelope = RestResult.builder().success(true).data(textPayload).build();
+        CommonUtil.formatRestResult(envelope);
+        stringConverter.write(JSONObject.toJSONString(envelope), MediaType.APPLICATION_JSON,
+                new ServletServerHttpResponse(sink));
+        return sink.size();
+    }
+
+    @Benchmark
+    public RestResult<Object> formatRestResult() {
+        return CommonUtil.formatRestResult(RestResult.builder().success(true).data(payload).build());
+    }
+
+    /**
+     * Same steps as the message converter method processor: advice, then the converter for the resulting body
+     */
+    @SuppressWarnings("unchecked")
+    private int write(MethodParameter returnType, Object body) throws IOException {
+        sink.reset();
+        ServletServerHttpResponse response = new ServletServerHttpResponse(sink);
+        Object result = body;
+        if (advice.supports(returnType, FastJsonHttpMessageConverter.class)) {
+            result = advice.beforeBodyWrite(body, returnType, MediaType.APPLICATION_JSON,
+                    FastJsonHttpMessageConverter.class, request, response);
+        }
+        if (result instanceof RestResult) {
+            restResultConverter.write(result, MediaType.APPLICATION_JSON, response);
+        } else if (result != null) {
+            fastJsonConverter.write(result, MediaType.APPLICATION_JSON, response);
+        }
+        return sink.size();
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.advice;
+
+import com.lihansir.platform.common.rest.RestResult;
+import com.lihansir.platform.starter.annotation.IgnoreRestResult;
+import com.lihansir.platform.starter.annotation.UseRestResult;
+
+import java.lang.reflect.Method;
+
+/**
+ * Immutable unified response decision of a handler method, resolved once and reused for every response
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public final class HandlerDecision {
+
+    /**
+     * Whether the response body should be wrapped into a unified response
+     */
+    private final boolean wrap;
+
+    /**
+     * Whether the handler method opted out with {@link IgnoreRestResult}, no wrapping rule applies to it
+     */
+    private final boolean ignored;
+
+    /**
+     * Whether the handler method returns {@link String}
+     */
+    private final boolean stringReturn;
+
+    /**
+     * Whether the handler method already returns {@link RestResult}
+     */
+    private final boolean restResultReturn;
+
+    private HandlerDecision(boolean wrap, boolean ignored, boolean stringReturn, boolean restResultReturn) {
+        this.wrap = wrap;
+        this.ignored = ignored;
+        this.stringReturn = stringReturn;
+        this.restResultReturn = restResultReturn;
+    }
+
+    /**
+     * Resolve the decision of a handler method from the index, looking annotations up for the classes it misses
+     *
+     * @param method handler method
+     * @return handler decision
+     */
+    public static HandlerDecision of(Method method) {
+        return of(method, RestResultIndex.get());
+    }
+
+    /**
+     * Resolve the decision of a handler method, the only place where annotations are looked up
+     *
+     * @param method handler method
+     * @param index  compile-time annotation index
+     * @return handler decision
+     */
+    public static HandlerDecision of(Method method, RestResultIndex index) {
+        Class<?> returnType = method.getReturnType();
+        boolean wrap;
+        boolean ignored;
+        if (index.contains(method)) {
+            ignored = index.isIgnored(method);
+            wrap = index.isWrap(method);
+        } else {
+            ignored = method.getAnnotation(IgnoreRestResult.class) != null;
+            wrap = !ignored && (method.getDeclaringClass().getAnnotation(UseRestResult.class) != null
+                    || method.getAnnotation(UseRestResult.class) != null);
+        }
+        return new HandlerDecision(wrap, ignored, String.class == returnType, RestResult.class == returnType);
+    }
+
+    /**
+     * Same decision with another wrap flag
+     *
+     * @param wrap whether the response body is wrapped
+     * @return handler decision
+     */
+    public HandlerDecision withWrap(boolean wrap) {
+        return wrap == this.wrap ? this : new HandlerDecision(wrap, ignored, stringReturn, restResultReturn);
+    }
+
+    public boolean isWrap() {
+        return wrap;
+    }
+
+    public boolean isIgnored() {
+        return ignored;
+    }
+
+    public boolean isStringReturn() {
+        return stringReturn;
+    }
+
+    public boolean isRestResultReturn() {
+        return restResultReturn;
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.advice;
+
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.PathMatcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configured include and exclude rules of the response wrapping, applied once per handler method when the decisions
+ * are computed, never per request
+ *
+ * <p>Exclusions win over {@link com.lihansir.platform.starter.annotation.UseRestResult}, inclusions never apply to a
+ * handler using {@link com.lihansir.platform.starter.annotation.IgnoreRestResult}. Path and media type rules need the
+ * request mapping of the handler, handlers outside of the request mappings only see the package and type rules.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class HandlerWrapRules {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HandlerWrapRules.class);
+
+    /**
+     * No rules, decisions only follow the annotations
+     */
+    public static final HandlerWrapRules NONE = new HandlerWrapRules(new RestResultProperties.Wrap());
+
+    private final Rule include;
+
+    private final Rule exclude;
+
+    public HandlerWrapRules(RestResultProperties.Wrap properties) {
+        this.include = new Rule(properties.getInclude());
+        this.exclude = new Rule(properties.getExclude());
+    }
+
+    /**
+     * Whether no rule is configured
+     *
+     * @return true without rules
+     */
+    public boolean isEmpty() {
+        return include.isEmpty() && exclude.isEmpty();
+    }
+
+    /**
+     * Apply the rules to a handler outside of the request mappings
+     *
+     * @param decision annotation decision
+     * @param beanType controller class
+     * @return handler decision
+     */
+    public HandlerDecision apply(HandlerDecision decision, Class<?> beanType) {
+        return apply(decision, beanType, Collections.emptySet(), Collections.emptySet());
+    }
+
+    /**
+     * Apply the rules to a mapped handler
+     *
+     * @param decision   annotation decision
+     * @param beanType   controller class
+     * @param patterns   mapped path patterns
+     * @param mediaTypes produced media types
+     * @return handler decision
+     */
+    public HandlerDecision apply(HandlerDecision decision, Class<?> beanType, Collection<String> patterns,
+                                 Collection<MediaType> mediaTypes) {
+        if (decision.isRestResultReturn() || isEmpty()) {
+            return decision;
+        }
+        if (exclude.matches(beanType, patterns, mediaTypes)) {
+            return decision.withWrap(false);
+        }
+        if (!decision.isWrap() && !decision.isIgnored() && include.matches(beanType, patterns, mediaTypes)) {
+            return decision.withWrap(true);
+        }
+        return decision;
+    }
+
+    /**
+     * One include or exclude rule, with its types resolved and media types parsed
+     */
+    private static final class Rule {
+
+        private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+        private final List<String> paths;
+
+        private final List<String> packages = new ArrayList<>();
+
+        private final List<Class<?>> types = new ArrayList<>();
+
+        private final List<MediaType> mediaTypes = new ArrayList<>();
+
+        Rule(RestResultProperties.WrapRule properties) {
+            this.paths = new ArrayList<>(properties.getPaths());
+            for (String packageName : properties.getPackages()) {
+                packages.add(packageName.endsWith(".") ? packageName : packageName + '.');
+            }
+            ClassLoader classLoader = HandlerWrapRules.class.getClassLoader();
+            for (String typeName : properties.getTypes()) {
+                if (!ClassUtils.isPresent(typeName, classLoader)) {
+                    LOGGER.warn("Wrap rule ignored, controller type not found：【{}】", typeName);
+                    continue;
+                }
+                types.add(ClassUtils.resolveClassName(typeName, classLoader));
+            }
+            for (String mediaType : properties.getMediaTypes()) {
+                mediaTypes.add(MediaType.parseMediaType(mediaType));
+            }
+        }
+
+        boolean isEmpty() {
+            return paths.isEmpty() && packages.isEmpty() && types.isEmpty() && mediaTypes.isEmpty();
+        }
+
+        boolean matches(Class<?> beanType, Collection<String> patterns, Collection<MediaType> produces) {
+            String typeName = beanType.getName();
+            for (String packageName : packages) {
+                if (typeName.startsWith(packageName)) {
+                    return true;
+                }
+            }
+            for (Class<?> type : types) {
+                if (type.isAssignableFrom(beanType)) {
+                    return true;
+                }
+            }
+            for (String pattern : patterns) {
+                for (String path : paths) {
+                    if (PATH_MATCHER.match(path, pattern)) {
+                        return true;
+                    }
+                }
+            }
+            for (MediaType mediaType : produces) {
+                for (MediaType rule : mediaTypes) {
+                    if (rule.includes(mediaType)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+    }
+
+}
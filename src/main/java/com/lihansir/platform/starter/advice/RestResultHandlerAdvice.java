@@ -5,27 +5,46 @@
 package com.lihansir.platform.starter.advice;
 
 import cn.hutool.core.util.StrUtil;
-import com.alibaba.fastjson.JSONObject;
-import com.lihansir.platform.common.code.CommonCode;
 import com.lihansir.platform.common.rest.RestResult;
-import com.lihansir.platform.starter.annotation.IgnoreRestResult;
-import com.lihansir.platform.starter.annotation.UseRestResult;
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import com.lihansir.platform.starter.cache.RestResultCache;
+import com.lihansir.platform.starter.cache.RestResultCacheInterceptor;
 import com.lihansir.platform.starter.context.RestResultHolder;
+import com.lihansir.platform.starter.converter.EncodedResponseWriter;
+import com.lihansir.platform.starter.converter.RestResultHttpMessageConverter;
+import com.lihansir.platform.starter.converter.StreamingRestResult;
+import com.lihansir.platform.starter.handler.NotFoundHandler;
+import com.lihansir.platform.starter.metrics.RestResultMetrics;
+import com.lihansir.platform.starter.serializer.RestResultSerializers;
 import com.lihansir.platform.starter.utils.CommonUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotWritableException;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 
-import java.lang.reflect.AnnotatedElement;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Global unified response processing
@@ -33,13 +52,84 @@ import java.util.Objects;
  * @author <a href="https://www.lihansir.com">Li Han</a>
  */
 @ControllerAdvice
-public class RestResultHandlerAdvice implements ResponseBodyAdvice<Object> {
+public class RestResultHandlerAdvice implements ResponseBodyAdvice<Object>, ApplicationListener<ContextRefreshedEvent> {
 
     private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
 
+    /**
+     * Handler method decisions, filled from the request mappings at startup and lazily for anything else
+     */
+    private final ConcurrentMap<Method, HandlerDecision> decisions = new ConcurrentHashMap<>(256);
+
+    private final LongAdder decisionHits = new LongAdder();
+
+    private final LongAdder decisionMisses = new LongAdder();
+
+    private final RestResultMetrics metrics;
+
+    /**
+     * Compile-time annotation index, loaded with the advice so no annotation is reflected on per request
+     */
+    private final RestResultIndex index;
+
+    /**
+     * Configured wrapping rules, folded into the decisions
+     */
+    private final HandlerWrapRules rules;
+
+    private final NotFoundHandler notFoundHandler;
+
+    /**
+     * Etag and compression of the responses written around encoded data
+     */
+    private final EncodedResponseWriter responseWriter;
+
+    /**
+     * Number of elements of a streaming body written between two flushes
+     */
+    private final int flushSize;
+
+    /**
+     * Advice with the default settings, no metrics and no wrapping rules
+     */
+    public RestResultHandlerAdvice() {
+        this(RestResultMetrics.NONE, StreamingRestResult.DEFAULT_FLUSH_SIZE, HandlerWrapRules.NONE,
+                new NotFoundHandler(new RestResultProperties.NotFound(), RestResultMetrics.NONE),
+                new EncodedResponseWriter());
+    }
+
+    public RestResultHandlerAdvice(RestResultMetrics metrics, int flushSize, HandlerWrapRules rules,
+                                   NotFoundHandler notFoundHandler, EncodedResponseWriter responseWriter) {
+        this.metrics = metrics;
+        this.notFoundHandler = notFoundHandler;
+        this.responseWriter = responseWriter;
+        this.flushSize = flushSize;
+        this.rules = rules;
+        this.index = RestResultIndex.get();
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        Map<Method, MappedHandler> handlers = new HashMap<>(256);
+        for (RequestMappingInfoHandlerMapping mapping : event.getApplicationContext()
+                .getBeansOfType(RequestMappingInfoHandlerMapping.class).values()) {
+            for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : mapping.getHandlerMethods().entrySet()) {
+                handlers.computeIfAbsent(entry.getValue().getMethod(), method -> new MappedHandler(entry.getValue()))
+                        .add(entry.getKey());
+            }
+        }
+        for (Map.Entry<Method, MappedHandler> entry : handlers.entrySet()) {
+            MappedHandler handler = entry.getValue();
+            decisions.put(entry.getKey(), rules.apply(HandlerDecision.of(entry.getKey(), index), handler.beanType,
+                    handler.patterns, handler.mediaTypes));
+        }
+        LOGGER.debug("Unified response decisions precomputed for {} handler methods, {} index entries",
+                decisions.size(), index.size());
+    }
+
     @Override
     public boolean supports(MethodParameter methodParameter, Class aClass) {
-        return Objects.requireNonNull(methodParameter.getMethod()).getReturnType() != RestResult.class;
+        return !getDecision(methodParameter, true).isRestResultReturn();
     }
 
     @Override
@@ -54,46 +144,197 @@ public class RestResultHandlerAdvice implements ResponseBodyAdvice<Object> {
                 requestPath = (String) errorData.getOrDefault("path", "/");
             }
             serverHttpResponse.setStatusCode(HttpStatus.OK);
-            RestResult<Object> result = RestResult.failedWithErrorMessage(CommonCode.ERROR_URL.getErrorCode(),
-                    CommonCode.ERROR_URL.getErrorMessage() + "，request path:【" + requestPath + "】");
-            CommonUtil.formatRestResult(result);
-            LOGGER.error("Path handler not found, Path：【{}】,TraceId：【{}】", requestPath, RestResultHolder.getTraceId());
+            String clientIp = serverHttpRequest instanceof ServletServerHttpRequest
+                    ? ((ServletServerHttpRequest)serverHttpRequest).getServletRequest().getRemoteAddr() : null;
+            return writeEnvelope(notFoundHandler.handle(requestPath, clientIp, RestResultHolder.current()),
+                    serverHttpResponse);
+        }
+        HandlerDecision decision = getDecision(methodParameter, false);
+        if (decision.isWrap()) {
+            long start = System.nanoTime();
+            Object result = formatResponse(body, decision, serverHttpRequest, serverHttpResponse);
+            if (result != null && metrics != RestResultMetrics.NONE
+                    && RestResultHttpMessageConverter.class.isAssignableFrom(aClass)
+                    && serverHttpRequest instanceof ServletServerHttpRequest) {
+                // serialized by the converter, which records the wrap once the response is written
+                ((ServletServerHttpRequest)serverHttpRequest).getServletRequest().setAttribute(
+                        RestResultHttpMessageConverter.WRAP_START_ATTRIBUTE,
+                        new RestResultHttpMessageConverter.WrapStart(methodParameter.getMethod(), start));
+            } else {
+                metrics.recordWrap(methodParameter.getMethod(), System.nanoTime() - start);
+            }
             return result;
         }
-        AnnotatedElement annotatedElement = methodParameter.getAnnotatedElement();
-        IgnoreRestResult ignoreAnnotation = annotatedElement.getAnnotation(IgnoreRestResult.class);
-        if (ignoreAnnotation != null) {
-            return body;
+        return body;
+    }
+
+    /**
+     * Decision of a handler method, the one its responses are wrapped by, rules and index included
+     *
+     * @param handlerMethod handler method
+     * @return handler decision
+     */
+    public HandlerDecision getDecision(HandlerMethod handlerMethod) {
+        Method method = handlerMethod.getMethod();
+        HandlerDecision decision = decisions.get(method);
+        if (decision != null) {
+            return decision;
         }
-        UseRestResult useRestResponseType =
-                methodParameter.getExecutable().getDeclaringClass().getAnnotation(UseRestResult.class);
-        if (useRestResponseType != null) {
-            return formatResponse(body, methodParameter, serverHttpResponse);
+        return decisions.computeIfAbsent(method, key -> resolveDecision(key, handlerMethod.getBeanType()));
+    }
+
+    /**
+     * Number of decision lookups answered from the cache
+     *
+     * @return hit count
+     */
+    public long getDecisionCacheHitCount() {
+        return decisionHits.sum();
+    }
+
+    /**
+     * Number of decision lookups that had to resolve annotations
+     *
+     * @return miss count
+     */
+    public long getDecisionCacheMissCount() {
+        return decisionMisses.sum();
+    }
+
+    /**
+     * Get the cached decision of the handler method, resolving it on first use with the controller class, as the
+     * precomputed decisions are
+     *
+     * @param methodParameter methodParameter
+     * @param count           whether the lookup is counted, only the one of {@code supports} is so that every
+     *                        response counts once
+     * @return handler decision
+     */
+    private HandlerDecision getDecision(MethodParameter methodParameter, boolean count) {
+        Method method = Objects.requireNonNull(methodParameter.getMethod());
+        HandlerDecision decision = decisions.get(method);
+        if (decision != null) {
+            if (count) {
+                decisionHits.increment();
+            }
+            return decision;
         }
-        UseRestResult responseAnnotationMethod = annotatedElement.getAnnotation(UseRestResult.class);
-        if (responseAnnotationMethod != null) {
-            return formatResponse(body, methodParameter, serverHttpResponse);
+        if (count) {
+            decisionMisses.increment();
         }
-        return body;
+        return decisions.computeIfAbsent(method, key -> resolveDecision(key, methodParameter.getContainingClass()));
+    }
+
+    private HandlerDecision resolveDecision(Method method, Class<?> beanType) {
+        return rules.apply(HandlerDecision.of(method, index), beanType);
     }
 
     /**
-     * Format unified response results
+     * Format unified response results, the envelope of a String handler is written straight into the response so
+     * that it is not serialized to a String first and encoded again by the String converter. Stream and iterator
+     * bodies are written element by element, so they are never held in memory as a whole. The data of a cached
+     * handler is encoded once, stored and written with the envelope of the current request, as is the data of a
+     * response that gets an etag or may be compressed
      *
-     * @param body            Response body
-     * @param methodParameter methodParameter
-     * @param response        Http response
-     * @return Unified response object
+     * @param body     Response body
+     * @param decision Handler decision
+     * @param request  Http request
+     * @param response Http response
+     * @return Unified response object, or null when it has already been written
      */
-    private Object formatResponse(Object body, MethodParameter methodParameter, ServerHttpResponse response) {
-        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+    private Object formatResponse(Object body, HandlerDecision decision, ServerHttpRequest request,
+                                  ServerHttpResponse response) {
+        RestResultCache.Load load = request instanceof ServletServerHttpRequest
+                ? RestResultCacheInterceptor.takeLoad(((ServletServerHttpRequest)request).getServletRequest()) : null;
+        if (load != null && (StreamingRestResult.isStreaming(body)
+                || ((ServletServerHttpResponse)response).getServletResponse().getStatus() != HttpStatus.OK.value())) {
+            load.abandon();
+            load = null;
+        }
+        if (StreamingRestResult.isStreaming(body)) {
+            return writeEnvelope(StreamingRestResult.of(body, RestResultHolder.current(), flushSize), response);
+        }
+        if (load != null) {
+            byte[] data;
+            try {
+                data = RestResultSerializers.get().toBytes(body);
+            } catch (RuntimeException e) {
+                load.abandon();
+                throw e;
+            }
+            load.complete(data);
+            return writeEncoded(body, data, request, response);
+        }
+        if (responseWriter.isApplicable(request,
+                ((ServletServerHttpResponse)response).getServletResponse().getStatus())) {
+            return writeEncoded(body, null, request, response);
+        }
         RestResult<Object> restResponse = RestResult.builder().success(true).data(body).build();
         CommonUtil.formatRestResult(restResponse);
-        Class<?> parameterType = methodParameter.getParameterType();
-        if (String.class == parameterType) {
-            return JSONObject.toJSONString(restResponse);
+        if (decision.isStringReturn()) {
+            return writeEnvelope(restResponse, response);
         }
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
         return restResponse;
     }
 
+    /**
+     * Write the unified response straight into the response, bypassing the converter selected for the handler
+     *
+     * @param envelope Unified response
+     * @param response Http response
+     * @return null, nothing is left for the converter to write
+     */
+    private Object writeEnvelope(Object envelope, ServerHttpResponse response) {
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        try {
+            metrics.recordPayload(RestResultHttpMessageConverter.writeEnvelope(envelope, response.getBody()));
+        } catch (IOException e) {
+            throw new HttpMessageNotWritableException("Could not write unified response: " + e.getMessage(), e);
+        }
+        return null;
+    }
+
+    /**
+     * Write the unified response around the encoded data, answering a matching conditional request with 304
+     *
+     * @param body     Response body
+     * @param data     Encoded body, null to encode it
+     * @param request  Http request
+     * @param response Http response
+     * @return null, nothing is left for the converter to write
+     */
+    private Object writeEncoded(Object body, byte[] data, ServerHttpRequest request, ServerHttpResponse response) {
+        try {
+            metrics.recordPayload(data != null
+                    ? responseWriter.write(data, request, response, RestResultHolder.current())
+                    : responseWriter.write(body, request, response, RestResultHolder.current()));
+        } catch (IOException e) {
+            throw new HttpMessageNotWritableException("Could not write unified response: " + e.getMessage(), e);
+        }
+        return null;
+    }
+
+    /**
+     * Controller class, mapped paths and produced media types of a handler method across its mappings
+     */
+    private static final class MappedHandler {
+
+        private final Class<?> beanType;
+
+        private final Set<String> patterns = new LinkedHashSet<>();
+
+        private final Set<MediaType> mediaTypes = new LinkedHashSet<>();
+
+        MappedHandler(HandlerMethod handlerMethod) {
+            this.beanType = handlerMethod.getBeanType();
+        }
+
+        void add(RequestMappingInfo info) {
+            patterns.addAll(info.getPatternValues());
+            mediaTypes.addAll(info.getProducesCondition().getProducibleMediaTypes());
+        }
+
+    }
+
 }
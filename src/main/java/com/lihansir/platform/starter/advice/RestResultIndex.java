@@ -0,0 +1,187 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.advice;
+
+import com.lihansir.platform.starter.annotation.IgnoreRestResult;
+import com.lihansir.platform.starter.annotation.UseRestResult;
+import org.springframework.core.SpringProperties;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Index of the {@link UseRestResult} and {@link IgnoreRestResult} annotations written at compile time by
+ * {@code RestResultIndexProcessor} of the opt-in indexer artifact, so handler decisions are made without reflecting on
+ * annotations
+ *
+ * <p>Each entry is keyed by the binary name of a class, or by the class followed by {@code #} and the method signature.
+ * The classes missing from the index were compiled without the processor and are still resolved by reflection. The
+ * index is ignored when the {@value #IGNORE_INDEX} spring property is set.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public final class RestResultIndex {
+
+    /**
+     * Location of the index in every jar or class directory
+     */
+    public static final String INDEX_LOCATION = "META-INF/rest-result.index";
+
+    /**
+     * Spring property disabling the index
+     */
+    public static final String IGNORE_INDEX = "lihansir.rest-result.index.ignore";
+
+    /**
+     * Flag of the elements annotated with {@link UseRestResult}
+     */
+    public static final String USE = "use";
+
+    /**
+     * Flag of the elements annotated with {@link IgnoreRestResult}
+     */
+    public static final String IGNORE = "ignore";
+
+    /**
+     * Index without entries, every decision is resolved by reflection
+     */
+    public static final RestResultIndex NONE = new RestResultIndex(Collections.emptyMap());
+
+    private static volatile RestResultIndex instance;
+
+    private final Map<String, String> entries;
+
+    private RestResultIndex(Map<String, String> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Index of the default class loader, loaded on first use
+     *
+     * @return index
+     */
+    public static RestResultIndex get() {
+        RestResultIndex index = instance;
+        if (index == null) {
+            synchronized (RestResultIndex.class) {
+                index = instance;
+                if (index == null) {
+                    index = SpringProperties.getFlag(IGNORE_INDEX) ? NONE
+                            : load(ClassUtils.getDefaultClassLoader());
+                    instance = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Merge the indexes found by a class loader
+     *
+     * @param classLoader class loader
+     * @return index, {@link #NONE} when none is found
+     */
+    public static RestResultIndex load(ClassLoader classLoader) {
+        Map<String, String> entries = new HashMap<>(256);
+        try {
+            Enumeration<URL> urls = classLoader == null ? ClassLoader.getSystemResources(INDEX_LOCATION)
+                    : classLoader.getResources(INDEX_LOCATION);
+            while (urls.hasMoreElements()) {
+                Properties properties = new Properties();
+                try (InputStream in = urls.nextElement().openStream()) {
+                    properties.load(in);
+                }
+                for (String key : properties.stringPropertyNames()) {
+                    entries.merge(key, properties.getProperty(key), (a, b) -> a.isEmpty() ? b : a);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to load the unified response index from " + INDEX_LOCATION, e);
+        }
+        return entries.isEmpty() ? NONE : new RestResultIndex(entries);
+    }
+
+    /**
+     * Number of indexed classes and methods
+     *
+     * @return entry count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Whether the class declaring a method was indexed
+     *
+     * @param method handler method
+     * @return true when the decision can be read from the index
+     */
+    public boolean contains(Method method) {
+        return entries.containsKey(method.getDeclaringClass().getName());
+    }
+
+    /**
+     * Whether the response of an indexed method is wrapped
+     *
+     * @param method handler method
+     * @return true when it is wrapped
+     */
+    public boolean isWrap(Method method) {
+        String flags = entries.get(methodKey(method));
+        if (flags != null && flags.contains(IGNORE)) {
+            return false;
+        }
+        return USE.equals(entries.get(method.getDeclaringClass().getName())) || flags != null && flags.contains(USE);
+    }
+
+    /**
+     * Whether an indexed method opted out with {@link IgnoreRestResult}
+     *
+     * @param method handler method
+     * @return true when it is ignored
+     */
+    public boolean isIgnored(Method method) {
+        String flags = entries.get(methodKey(method));
+        return flags != null && flags.contains(IGNORE);
+    }
+
+    /**
+     * Key of a method, the binary name of its class followed by its name and erased parameter types
+     *
+     * @param method method
+     * @return index key
+     */
+    public static String methodKey(Method method) {
+        StringBuilder key = new StringBuilder(128).append(method.getDeclaringClass().getName()).append('#')
+                .append(method.getName()).append('(');
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                key.append(',');
+            }
+            appendTypeName(key, parameterTypes[i]);
+        }
+        return key.append(')').toString();
+    }
+
+    private static void appendTypeName(StringBuilder key, Class<?> type) {
+        if (type.isArray()) {
+            appendTypeName(key, type.getComponentType());
+            key.append("[]");
+        } else {
+            key.append(type.getName());
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.advice;
+
+import com.lihansir.platform.starter.context.RestResultContext;
+import com.lihansir.platform.starter.context.RestResultHolder;
+import com.lihansir.platform.starter.converter.StreamingRestResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Unified response written asynchronously from a stream or iterator, for handlers that return
+ * {@code ResponseEntity<StreamingResponseBody>} to release the request thread while a large export is written
+ *
+ * <pre>
+ * return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(RestResultStreamingResponseBody.of(rows));
+ * </pre>
+ *
+ * <p>The request context is captured when the body is created, as it is written on another thread.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public final class RestResultStreamingResponseBody implements StreamingResponseBody {
+
+    private final Object source;
+
+    private final RestResultContext.Snapshot context;
+
+    private final int flushSize;
+
+    private RestResultStreamingResponseBody(Object source, int flushSize) {
+        this.source = source;
+        this.context = RestResultHolder.capture();
+        this.flushSize = flushSize;
+    }
+
+    public static RestResultStreamingResponseBody of(Stream<?> stream) {
+        return new RestResultStreamingResponseBody(stream, StreamingRestResult.DEFAULT_FLUSH_SIZE);
+    }
+
+    public static RestResultStreamingResponseBody of(Stream<?> stream, int flushSize) {
+        return new RestResultStreamingResponseBody(stream, flushSize);
+    }
+
+    public static RestResultStreamingResponseBody of(Iterator<?> iterator) {
+        return new RestResultStreamingResponseBody(iterator, StreamingRestResult.DEFAULT_FLUSH_SIZE);
+    }
+
+    public static RestResultStreamingResponseBody of(Iterator<?> iterator, int flushSize) {
+        return new RestResultStreamingResponseBody(iterator, flushSize);
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        StreamingRestResult.of(source, context, flushSize).writeTo(outputStream);
+    }
+
+}
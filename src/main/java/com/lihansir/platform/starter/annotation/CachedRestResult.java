@@ -0,0 +1,46 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.annotation;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache the unified response data of a GET handler, hits skip both the handler and the json encoding of the data
+ *
+ * <p>Only applies to handlers whose response is wrapped. The cache key is the handler, the request path, the query
+ * string and the values of the vary headers. Authenticated requests, with an Authorization header or a user principal,
+ * are not cached unless {@link #authenticated()} is set.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(value = {ElementType.METHOD, ElementType.TYPE})
+@Documented
+public @interface CachedRestResult {
+
+    /**
+     * Time to live of a cached response
+     */
+    long ttl() default 60;
+
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    /**
+     * Whether the local cache is used in front of the shared one
+     */
+    boolean local() default true;
+
+    /**
+     * Request headers the response depends on, for example Accept-Language
+     */
+    String[] varyHeaders() default {};
+
+    /**
+     * Whether authenticated requests are cached as well, per principal and Authorization header
+     */
+    boolean authenticated() default false;
+
+}
@@ -4,7 +4,7 @@
 
 package com.lihansir.platform.starter.annotation;
 
-import com.lihansir.platform.starter.autoconfigure.RestResultAutoConfiguration;
+import com.lihansir.platform.starter.autoconfigure.RestResultMarkerConfiguration;
 import org.springframework.context.annotation.Import;
 import java.lang.annotation.*;
 
@@ -16,5 +16,5 @@ import java.lang.annotation.*;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(value = {ElementType.TYPE})
 @Documented
-@Import(RestResultAutoConfiguration.class)
+@Import(RestResultMarkerConfiguration.class)
 public @interface EnableRestResult {}
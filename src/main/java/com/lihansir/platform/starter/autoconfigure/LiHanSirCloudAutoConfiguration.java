@@ -4,14 +4,21 @@
 
 package com.lihansir.platform.starter.autoconfigure;
 
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
 
 /**
- * autoconfigure main class
+ * autoconfigure main class, the servlet or reactive configuration is picked by the type of the web application
+ *
+ * <p>Opt-in: nothing is loaded unless the application uses {@code EnableRestResult} or sets
+ * {@code lihansir.rest-result.enabled=true}. Setting it to false turns the annotation off as well.</p>
  *
  * @author <a href="https://www.lihansir.com">Li Han</a>
  */
 @Configuration(proxyBeanMethods = false)
+@Conditional(OnRestResultEnabledCondition.class)
+@Import({RestResultAutoConfiguration.class, ReactiveRestResultAutoConfiguration.class})
 public class LiHanSirCloudAutoConfiguration {
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.autoconfigure;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.ConfigurationCondition;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Matches when {@code lihansir.rest-result.enabled} is true, or when it is not set and the application uses
+ * {@code EnableRestResult}
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+class OnRestResultEnabledCondition extends SpringBootCondition implements ConfigurationCondition {
+
+    static final String ENABLED_PROPERTY = "lihansir.rest-result.enabled";
+
+    @Override
+    public ConfigurationPhase getConfigurationPhase() {
+        return ConfigurationPhase.REGISTER_BEAN;
+    }
+
+    @Override
+    public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        Boolean enabled = context.getEnvironment().getProperty(ENABLED_PROPERTY, Boolean.class);
+        if (enabled != null) {
+            return new ConditionOutcome(enabled, ENABLED_PROPERTY + " is " + enabled);
+        }
+        ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+        boolean marked = beanFactory != null && beanFactory.getBeanNamesForType(
+                RestResultMarkerConfiguration.Marker.class, false, false).length > 0;
+        return new ConditionOutcome(marked, marked ? "@EnableRestResult found" : "no @EnableRestResult and "
+                + ENABLED_PROPERTY + " not set");
+    }
+
+}
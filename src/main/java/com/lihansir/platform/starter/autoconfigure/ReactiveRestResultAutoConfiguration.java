@@ -0,0 +1,73 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.autoconfigure;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.core.ReactiveAdapterRegistry;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolver;
+import org.springframework.web.reactive.result.method.annotation.ResponseBodyResultHandler;
+import com.lihansir.platform.starter.advice.HandlerWrapRules;
+import com.lihansir.platform.starter.handler.ExceptionLogger;
+import com.lihansir.platform.starter.handler.ExceptionMappingRegistry;
+import com.lihansir.platform.starter.handler.NotFoundHandler;
+import com.lihansir.platform.starter.handler.ValidationErrorAggregator;
+import com.lihansir.platform.starter.metrics.RestResultMetrics;
+import com.lihansir.platform.starter.reactive.ReactiveGlobalExceptionHandler;
+import com.lihansir.platform.starter.reactive.ReactiveTraceIdFilter;
+import com.lihansir.platform.starter.reactive.RestResultResponseBodyResultHandler;
+
+/**
+ * Unified response configuration class of reactive applications
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnClass(ResponseBodyResultHandler.class)
+@Import(RestResultCoreConfiguration.class)
+public class ReactiveRestResultAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "lihansir.rest-result.wrap", name = "enabled", matchIfMissing = true)
+    public RestResultResponseBodyResultHandler restResultResponseBodyResultHandler(
+            ServerCodecConfigurer serverCodecConfigurer, RequestedContentTypeResolver contentTypeResolver,
+            ReactiveAdapterRegistry adapterRegistry, RestResultProperties properties) {
+        return new RestResultResponseBodyResultHandler(serverCodecConfigurer.getWriters(), contentTypeResolver,
+                adapterRegistry, properties.getStreaming().getFlushSize(), new HandlerWrapRules(properties.getWrap()));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "lihansir.rest-result.exception-handler", name = "enabled", matchIfMissing = true)
+    public ReactiveGlobalExceptionHandler reactiveGlobalExceptionHandler(
+            ExceptionLogger restResultExceptionLogger, ObjectProvider<RestResultMetrics> metrics,
+            NotFoundHandler restResultNotFoundHandler, ValidationErrorAggregator restResultValidationErrorAggregator,
+            ExceptionMappingRegistry restResultExceptionMappingRegistry) {
+        return new ReactiveGlobalExceptionHandler(restResultExceptionLogger,
+                metrics.getIfAvailable(() -> RestResultMetrics.NONE), restResultNotFoundHandler,
+                restResultValidationErrorAggregator, restResultExceptionMappingRegistry);
+    }
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "lihansir.rest-result.trace", name = "enabled", matchIfMissing = true)
+    public ReactiveTraceIdFilter reactiveTraceIdFilter(RestResultProperties properties) {
+        RestResultProperties.Trace trace = properties.getTrace();
+        return new ReactiveTraceIdFilter(trace.getHeaderName(), trace.isResponseHeader());
+    }
+
+}
@@ -4,33 +4,246 @@
 
 package com.lihansir.platform.starter.autoconfigure;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.util.function.SingletonSupplier;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import com.lihansir.platform.starter.advice.HandlerWrapRules;
 import com.lihansir.platform.starter.advice.RestResultHandlerAdvice;
+import com.lihansir.platform.starter.breaker.RedisRestResultCircuitBreakerStore;
+import com.lihansir.platform.starter.breaker.RestResultCircuitBreaker;
+import com.lihansir.platform.starter.breaker.RestResultCircuitBreakerInterceptor;
+import com.lihansir.platform.starter.breaker.RestResultCircuitBreakerStore;
+import com.lihansir.platform.starter.cache.RedisRestResultCacheStore;
+import com.lihansir.platform.starter.cache.RestResultCache;
+import com.lihansir.platform.starter.cache.RestResultCacheInterceptor;
+import com.lihansir.platform.starter.cache.RestResultCacheStore;
+import com.lihansir.platform.starter.converter.EncodedResponseWriter;
+import com.lihansir.platform.starter.converter.RestResultHttpMessageConverter;
+import com.lihansir.platform.starter.filter.TraceIdFilter;
+import com.lihansir.platform.starter.handler.ExceptionLogger;
+import com.lihansir.platform.starter.handler.ExceptionMappingRegistry;
 import com.lihansir.platform.starter.handler.GlobalExceptionHandler;
+import com.lihansir.platform.starter.handler.NotFoundHandler;
+import com.lihansir.platform.starter.handler.ValidationErrorAggregator;
+import com.lihansir.platform.starter.metrics.RestResultMetrics;
 import com.lihansir.platform.starter.resolver.GlobalErrorViewResolver;
 
+import javax.servlet.DispatcherType;
+
 /**
  * Unified response configuration class
  *
  * @author <a href="https://www.lihansir.com">Li Han</a>
  */
 @Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass(DispatcherServlet.class)
+@Import(RestResultCoreConfiguration.class)
 public class RestResultAutoConfiguration {
 
     @Bean
-    public RestResultHandlerAdvice restResultHandlerAdvice() {
-        return new RestResultHandlerAdvice();
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "lihansir.rest-result.wrap", name = "enabled", matchIfMissing = true)
+    public RestResultHandlerAdvice restResultHandlerAdvice(ObjectProvider<RestResultMetrics> metrics,
+                                                           RestResultProperties properties,
+                                                           NotFoundHandler restResultNotFoundHandler,
+                                                           EncodedResponseWriter restResultEncodedResponseWriter) {
+        return new RestResultHandlerAdvice(metrics.getIfAvailable(() -> RestResultMetrics.NONE),
+                properties.getStreaming().getFlushSize(), new HandlerWrapRules(properties.getWrap()),
+                restResultNotFoundHandler, restResultEncodedResponseWriter);
+    }
+
+    /**
+     * Etag and gzip compression of the responses written around encoded data, shared by the advice and the cache
+     *
+     * @param properties unified response properties
+     * @return encoded response writer
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public EncodedResponseWriter restResultEncodedResponseWriter(RestResultProperties properties) {
+        return new EncodedResponseWriter(properties.getEtag(), properties.getCompression());
+    }
+
+    /**
+     * Picked up by the boot message converters ahead of the default ones, writes both wrapped and failed responses
+     *
+     * @return unified response converter
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "lihansir.rest-result.converter", name = "enabled", matchIfMissing = true)
+    public RestResultHttpMessageConverter restResultHttpMessageConverter(ObjectProvider<RestResultMetrics> metrics) {
+        return new RestResultHttpMessageConverter(metrics.getIfAvailable(() -> RestResultMetrics.NONE));
     }
 
     @Bean
-    public GlobalExceptionHandler globalExceptionHandler() {
-        return new GlobalExceptionHandler();
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "lihansir.rest-result.exception-handler", name = "enabled", matchIfMissing = true)
+    public GlobalExceptionHandler globalExceptionHandler(
+            ExceptionLogger restResultExceptionLogger, ObjectProvider<RestResultMetrics> metrics,
+            NotFoundHandler restResultNotFoundHandler, ValidationErrorAggregator restResultValidationErrorAggregator,
+            ExceptionMappingRegistry restResultExceptionMappingRegistry) {
+        return new GlobalExceptionHandler(restResultExceptionLogger,
+                metrics.getIfAvailable(() -> RestResultMetrics.NONE), restResultNotFoundHandler,
+                restResultValidationErrorAggregator, restResultExceptionMappingRegistry);
     }
 
     @Bean
-    public GlobalErrorViewResolver globalErrorViewResolver() {
-        return new GlobalErrorViewResolver();
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "lihansir.rest-result.error-view", name = "enabled", matchIfMissing = true)
+    public GlobalErrorViewResolver globalErrorViewResolver(NotFoundHandler restResultNotFoundHandler) {
+        return new GlobalErrorViewResolver(restResultNotFoundHandler);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(name = "traceIdFilter")
+    @ConditionalOnProperty(prefix = "lihansir.rest-result.trace", name = "enabled", matchIfMissing = true)
+    public FilterRegistrationBean<TraceIdFilter> traceIdFilter(RestResultProperties properties) {
+        RestResultProperties.Trace trace = properties.getTrace();
+        FilterRegistrationBean<TraceIdFilter> registration = new FilterRegistrationBean<>(
+                new TraceIdFilter(trace.getHeaderName(), trace.getMdcKey(), trace.isResponseHeader()));
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ERROR);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "lihansir.rest-result.circuit-breaker", name = "enabled", havingValue = "true")
+    static class CircuitBreakerConfiguration {
+
+        @Bean(initMethod = "start")
+        @ConditionalOnMissingBean
+        public RestResultCircuitBreaker restResultCircuitBreaker(RestResultProperties properties,
+                                                                 ObjectProvider<RestResultCircuitBreakerStore> store) {
+            return new RestResultCircuitBreaker(properties.getCircuitBreaker(),
+                    store.getIfUnique(() -> RestResultCircuitBreakerStore.NONE));
+        }
+
+        /**
+         * Runs after the other interceptors, so a request they reject or the cache serves takes no probe
+         *
+         * @param restResultCircuitBreaker circuit breaker
+         * @return configurer registering the interceptor
+         */
+        @Bean
+        public WebMvcConfigurer restResultCircuitBreakerConfigurer(RestResultCircuitBreaker restResultCircuitBreaker) {
+            RestResultCircuitBreakerInterceptor interceptor =
+                    new RestResultCircuitBreakerInterceptor(restResultCircuitBreaker);
+            return new WebMvcConfigurer() {
+                @Override
+                public void addInterceptors(InterceptorRegistry registry) {
+                    registry.addInterceptor(interceptor).order(Ordered.LOWEST_PRECEDENCE);
+                }
+            };
+        }
+
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnClass(RedisConnectionFactory.class)
+        static class RedisStoreConfiguration {
+
+            /**
+             * Counters shared by the nodes, local only when no redis connection is configured
+             *
+             * @param connectionFactory redis connection factory
+             * @param properties        unified response properties
+             * @return circuit breaker store
+             */
+            @Bean
+            @ConditionalOnMissingBean(RestResultCircuitBreakerStore.class)
+            public RestResultCircuitBreakerStore restResultCircuitBreakerStore(
+                    ObjectProvider<RedisConnectionFactory> connectionFactory, RestResultProperties properties) {
+                RedisConnectionFactory factory = connectionFactory.getIfUnique();
+                return factory == null ? RestResultCircuitBreakerStore.NONE : new RedisRestResultCircuitBreakerStore(
+                        factory, properties.getCircuitBreaker().getKeyPrefix());
+            }
+
+        }
+
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(Caffeine.class)
+    @ConditionalOnProperty(prefix = "lihansir.rest-result.cache", name = "enabled", matchIfMissing = true)
+    static class CacheConfiguration {
+
+        /**
+         * Created by the first request to a cached handler
+         *
+         * @param properties unified response properties
+         * @param store      shared store
+         * @return response cache
+         */
+        @Bean
+        @Lazy
+        @ConditionalOnMissingBean
+        public RestResultCache restResultCache(RestResultProperties properties,
+                                               ObjectProvider<RestResultCacheStore> store) {
+            return new RestResultCache(properties.getCache(), store.getIfUnique(() -> RestResultCacheStore.NONE));
+        }
+
+        /**
+         * Caches the handlers by the decisions of the response body advice, the one completing the loads. Runs after
+         * the interceptors of the application, so a hit is only served to a request they let through, and right
+         * before the circuit breaker
+         *
+         * @param restResultCache                 response cache
+         * @param restResultHandlerAdvice         response body advice
+         * @param restResultEncodedResponseWriter writer of the cached responses
+         * @return configurer registering the interceptor
+         */
+        @Bean
+        public WebMvcConfigurer restResultCacheConfigurer(
+                ObjectProvider<RestResultCache> restResultCache,
+                ObjectProvider<RestResultHandlerAdvice> restResultHandlerAdvice,
+                EncodedResponseWriter restResultEncodedResponseWriter) {
+            RestResultCacheInterceptor interceptor = new RestResultCacheInterceptor(
+                    SingletonSupplier.of(restResultCache::getObject), restResultEncodedResponseWriter, handler -> {
+                        RestResultHandlerAdvice advice = restResultHandlerAdvice.getIfAvailable();
+                        return advice == null ? null : advice.getDecision(handler);
+                    });
+            return new WebMvcConfigurer() {
+                @Override
+                public void addInterceptors(InterceptorRegistry registry) {
+                    registry.addInterceptor(interceptor).order(Ordered.LOWEST_PRECEDENCE - 1);
+                }
+            };
+        }
+
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnClass(RedisConnectionFactory.class)
+        static class RedisStoreConfiguration {
+
+            /**
+             * Shared store of the response cache, local only when no redis connection is configured
+             *
+             * @param connectionFactory redis connection factory
+             * @return cache store
+             */
+            @Bean
+            @Lazy
+            @ConditionalOnMissingBean(RestResultCacheStore.class)
+            public RestResultCacheStore restResultCacheStore(ObjectProvider<RedisConnectionFactory> connectionFactory) {
+                RedisConnectionFactory factory = connectionFactory.getIfUnique();
+                return factory == null ? RestResultCacheStore.NONE : new RedisRestResultCacheStore(factory);
+            }
+
+        }
+
     }
 
 }
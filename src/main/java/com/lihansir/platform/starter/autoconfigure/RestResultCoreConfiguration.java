@@ -0,0 +1,114 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.autoconfigure;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import com.lihansir.platform.starter.context.RestResultTaskDecorator;
+import com.lihansir.platform.starter.handler.ExceptionLogger;
+import com.lihansir.platform.starter.handler.ExceptionMappingConfigurer;
+import com.lihansir.platform.starter.handler.ExceptionMappingRegistry;
+import com.lihansir.platform.starter.handler.GlobalExceptionHandler;
+import com.lihansir.platform.starter.handler.NotFoundHandler;
+import com.lihansir.platform.starter.handler.ValidationErrorAggregator;
+import com.lihansir.platform.starter.metrics.MicrometerRestResultMetrics;
+import com.lihansir.platform.starter.metrics.RestResultMetrics;
+import com.lihansir.platform.starter.serializer.RestResultSerializer;
+import com.lihansir.platform.starter.serializer.RestResultSerializers;
+
+import java.util.stream.Collectors;
+
+/**
+ * Unified response configuration shared by servlet and reactive applications
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(RestResultProperties.class)
+public class RestResultCoreConfiguration {
+
+    /**
+     * Context mode, default host and serializer of the process, reset when the context closes
+     *
+     * @return initializer
+     */
+    @Bean
+    public RestResultStaticInitializer restResultStaticInitializer(RestResultProperties properties,
+            ObjectProvider<RestResultSerializer> serializer, ListableBeanFactory beanFactory) {
+        return new RestResultStaticInitializer(properties, () -> serializer.getIfUnique(
+                () -> RestResultSerializers.create(properties.getSerializer(), beanFactory)));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ExceptionLogger restResultExceptionLogger(RestResultProperties properties) {
+        return new ExceptionLogger(LoggerFactory.getLogger(GlobalExceptionHandler.class), properties.getExceptionLog());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public NotFoundHandler restResultNotFoundHandler(RestResultProperties properties,
+                                                     ObjectProvider<RestResultMetrics> metrics) {
+        return new NotFoundHandler(properties.getNotFound(), metrics.getIfAvailable(() -> RestResultMetrics.NONE));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ValidationErrorAggregator restResultValidationErrorAggregator(
+            RestResultProperties properties, ObjectProvider<MessageSource> messageSource) {
+        return new ValidationErrorAggregator(properties.getValidation(), messageSource.getIfUnique());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ExceptionMappingRegistry restResultExceptionMappingRegistry(
+            RestResultProperties properties, ObjectProvider<ExceptionMappingConfigurer> configurers) {
+        return new ExceptionMappingRegistry(properties.getExceptionHandler(),
+                configurers.orderedStream().collect(Collectors.toList()));
+    }
+
+    /**
+     * Applied by boot to the auto-configured task executor, so {@code @Async} methods keep the trace id
+     *
+     * @return task decorator
+     */
+    @Bean
+    @ConditionalOnMissingBean(TaskDecorator.class)
+    @ConditionalOnProperty(prefix = "lihansir.rest-result.task-decorator", name = "enabled", matchIfMissing = true)
+    public RestResultTaskDecorator restResultTaskDecorator() {
+        return new RestResultTaskDecorator();
+    }
+
+    /**
+     * Micrometer instrumentation, only loaded when micrometer is on the classpath
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnProperty(prefix = "lihansir.rest-result.metrics", name = "enabled", matchIfMissing = true)
+    static class MetricsConfiguration {
+
+        @Bean
+        public RestResultMetrics restResultMetrics(ObjectProvider<MeterRegistry> registry,
+                                                   RestResultProperties properties) {
+            MeterRegistry meterRegistry = registry.getIfUnique();
+            if (meterRegistry == null) {
+                return RestResultMetrics.NONE;
+            }
+            return new MicrometerRestResultMetrics(meterRegistry, properties.getMetrics().getMaxTagValues());
+        }
+
+    }
+
+}
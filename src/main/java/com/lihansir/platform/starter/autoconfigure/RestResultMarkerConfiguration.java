@@ -0,0 +1,32 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.autoconfigure;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Imported by {@code EnableRestResult}, its marker bean switches the auto-configuration on
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+@Configuration(proxyBeanMethods = false)
+public class RestResultMarkerConfiguration {
+
+    @Bean
+    public Marker restResultMarker() {
+        return new Marker();
+    }
+
+    /**
+     * Marker of the applications using {@code EnableRestResult}
+     */
+    public static class Marker {
+
+        Marker() {}
+
+    }
+
+}
@@ -0,0 +1,1076 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.autoconfigure;
+
+import com.lihansir.platform.common.code.CommonCode;
+import com.lihansir.platform.starter.context.RestResultContextMode;
+import com.lihansir.platform.starter.converter.StreamingRestResult;
+import com.lihansir.platform.starter.handler.ExceptionLogPolicy;
+import com.lihansir.platform.starter.handler.ExceptionMapping;
+import com.lihansir.platform.starter.handler.ValidationErrorMode;
+import com.lihansir.platform.starter.serializer.SerializerType;
+import com.lihansir.platform.starter.utils.HostSource;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unified response properties
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+@ConfigurationProperties(prefix = "lihansir.rest-result")
+public class RestResultProperties {
+
+    /**
+     * Json library of the responses written by the starter, auto picks Jackson first so the output matches the
+     * application converters
+     */
+    private SerializerType serializer = SerializerType.AUTO;
+
+    /**
+     * Whether the starter is active, when not set it is only active with {@code EnableRestResult}. False turns every
+     * part off at once, the annotation included
+     */
+    private Boolean enabled;
+
+    /**
+     * Wrapping of the handler responses into the unified response
+     */
+    private final Wrap wrap = new Wrap();
+
+    /**
+     * Global exception handler
+     */
+    private final ExceptionHandler exceptionHandler = new ExceptionHandler();
+
+    /**
+     * Unified response of the servlet error page
+     */
+    private final ErrorView errorView = new ErrorView();
+
+    /**
+     * Logging of the exceptions handled by the global exception handler
+     */
+    private final ExceptionLog exceptionLog = new ExceptionLog();
+
+    /**
+     * Response of a failed validation
+     */
+    private final Validation validation = new Validation();
+
+    /**
+     * Micrometer instrumentation, active when a meter registry is available
+     */
+    private final Metrics metrics = new Metrics();
+
+    /**
+     * Trace id filter
+     */
+    private final Trace trace = new Trace();
+
+    /**
+     * Message converter writing the unified responses returned by the handlers
+     */
+    private final Converter converter = new Converter();
+
+    /**
+     * Task decorator carrying the request context over to the auto-configured task executor
+     */
+    private final TaskDecorator taskDecorator = new TaskDecorator();
+
+    /**
+     * Request context of the unified response
+     */
+    private final Context context = new Context();
+
+    /**
+     * Streaming responses of stream, iterator and multi-value publisher bodies
+     */
+    private final Streaming streaming = new Streaming();
+
+    /**
+     * Response cache of the handlers annotated with {@code CachedRestResult}
+     */
+    private final Cache cache = new Cache();
+
+    /**
+     * Circuit breaker short-circuiting the handlers whose error rate is too high
+     */
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * Handling of the requests without a handler
+     */
+    private final NotFound notFound = new NotFound();
+
+    /**
+     * Host reported in the unified response, resolved once at startup
+     */
+    private final Host host = new Host();
+
+    /**
+     * Etag of the wrapped responses, taken over their data
+     */
+    private final Etag etag = new Etag();
+
+    /**
+     * Gzip compression of the wrapped responses
+     */
+    private final Compression compression = new Compression();
+
+    public SerializerType getSerializer() {
+        return serializer;
+    }
+
+    public void setSerializer(SerializerType serializer) {
+        this.serializer = serializer;
+    }
+
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Wrap getWrap() {
+        return wrap;
+    }
+
+    public ExceptionHandler getExceptionHandler() {
+        return exceptionHandler;
+    }
+
+    public ErrorView getErrorView() {
+        return errorView;
+    }
+
+    public ExceptionLog getExceptionLog() {
+        return exceptionLog;
+    }
+
+    public Validation getValidation() {
+        return validation;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public Trace getTrace() {
+        return trace;
+    }
+
+    public Converter getConverter() {
+        return converter;
+    }
+
+    public TaskDecorator getTaskDecorator() {
+        return taskDecorator;
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    public Streaming getStreaming() {
+        return streaming;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public NotFound getNotFound() {
+        return notFound;
+    }
+
+    public Host getHost() {
+        return host;
+    }
+
+    public Etag getEtag() {
+        return etag;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public static class Wrap {
+
+        /**
+         * Whether the responses of the handlers using {@code UseRestResult} are wrapped
+         */
+        private boolean enabled = true;
+
+        /**
+         * Handlers wrapped without {@code UseRestResult}, unless they use {@code IgnoreRestResult}
+         */
+        private final WrapRule include = new WrapRule();
+
+        /**
+         * Handlers never wrapped, even with {@code UseRestResult}
+         */
+        private final WrapRule exclude = new WrapRule();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public WrapRule getInclude() {
+            return include;
+        }
+
+        public WrapRule getExclude() {
+            return exclude;
+        }
+
+    }
+
+    /**
+     * Handlers matched by any of the path patterns, packages, controller types or produced media types
+     */
+    public static class WrapRule {
+
+        /**
+         * Ant style patterns matched against the mapped paths of a handler, such as /actuator/**
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * Packages of the controllers, sub-packages included
+         */
+        private List<String> packages = new ArrayList<>();
+
+        /**
+         * Fully qualified names of controller classes or interfaces, subtypes included
+         */
+        private List<String> types = new ArrayList<>();
+
+        /**
+         * Media types declared in the produces of a mapping, such as application/octet-stream
+         */
+        private List<String> mediaTypes = new ArrayList<>();
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public List<String> getPackages() {
+            return packages;
+        }
+
+        public void setPackages(List<String> packages) {
+            this.packages = packages;
+        }
+
+        public List<String> getTypes() {
+            return types;
+        }
+
+        public void setTypes(List<String> types) {
+            this.types = types;
+        }
+
+        public List<String> getMediaTypes() {
+            return mediaTypes;
+        }
+
+        public void setMediaTypes(List<String> mediaTypes) {
+            this.mediaTypes = mediaTypes;
+        }
+
+    }
+
+    public static class ExceptionHandler {
+
+        /**
+         * Whether exceptions are turned into failed unified responses
+         */
+        private boolean enabled = true;
+
+        /**
+         * Responses keyed by fully qualified exception class name, subclasses use the mapping of the closest type
+         */
+        private Map<String, ExceptionMapping> mappings = new LinkedHashMap<>();
+
+        /**
+         * Whether the message of an exception without a mapping is returned to the client, it may leak internals
+         */
+        private boolean exposeUnknownMessages = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Map<String, ExceptionMapping> getMappings() {
+            return mappings;
+        }
+
+        public void setMappings(Map<String, ExceptionMapping> mappings) {
+            this.mappings = mappings;
+        }
+
+        public boolean isExposeUnknownMessages() {
+            return exposeUnknownMessages;
+        }
+
+        public void setExposeUnknownMessages(boolean exposeUnknownMessages) {
+            this.exposeUnknownMessages = exposeUnknownMessages;
+        }
+
+    }
+
+    public static class ErrorView {
+
+        /**
+         * Whether the error page is rendered as a failed unified response
+         */
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+    }
+
+    public static class ExceptionLog {
+
+        /**
+         * Policy of the exception types without a policy of their own
+         */
+        private ExceptionLogPolicy defaultPolicy = new ExceptionLogPolicy();
+
+        /**
+         * Policies keyed by fully qualified exception class name, subclasses inherit the policy of the closest type
+         */
+        private Map<String, ExceptionLogPolicy> policies = new LinkedHashMap<>();
+
+        /**
+         * Interval of the summary of suppressed log counts per error code
+         */
+        private Duration summaryInterval = Duration.ofMinutes(1);
+
+        /**
+         * Maximum number of error codes tracked separately, the rest share one counter
+         */
+        private int maxErrorCodes = 1024;
+
+        public ExceptionLog() {
+            ExceptionLogPolicy notFound = new ExceptionLogPolicy();
+            notFound.setStackTrace(false);
+            policies.put("org.springframework.web.servlet.NoHandlerFoundException", notFound);
+        }
+
+        public ExceptionLogPolicy getDefaultPolicy() {
+            return defaultPolicy;
+        }
+
+        public void setDefaultPolicy(ExceptionLogPolicy defaultPolicy) {
+            this.defaultPolicy = defaultPolicy;
+        }
+
+        public Map<String, ExceptionLogPolicy> getPolicies() {
+            return policies;
+        }
+
+        public void setPolicies(Map<String, ExceptionLogPolicy> policies) {
+            this.policies = policies;
+        }
+
+        public Duration getSummaryInterval() {
+            return summaryInterval;
+        }
+
+        public void setSummaryInterval(Duration summaryInterval) {
+            this.summaryInterval = summaryInterval;
+        }
+
+        public int getMaxErrorCodes() {
+            return maxErrorCodes;
+        }
+
+        public void setMaxErrorCodes(int maxErrorCodes) {
+            this.maxErrorCodes = maxErrorCodes;
+        }
+
+    }
+
+    public static class Validation {
+
+        /**
+         * Shape of the response, fields lists the messages of every field in the data of the response
+         */
+        private ValidationErrorMode mode = ValidationErrorMode.MESSAGE;
+
+        /**
+         * Maximum number of errors reported, the others are only counted
+         */
+        private int maxErrors = 20;
+
+        /**
+         * Whether the messages are resolved through the message source, the default messages of the validator are
+         * used otherwise
+         */
+        private boolean resolveMessages = false;
+
+        public ValidationErrorMode getMode() {
+            return mode;
+        }
+
+        public void setMode(ValidationErrorMode mode) {
+            this.mode = mode;
+        }
+
+        public int getMaxErrors() {
+            return maxErrors;
+        }
+
+        public void setMaxErrors(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        public boolean isResolveMessages() {
+            return resolveMessages;
+        }
+
+        public void setResolveMessages(boolean resolveMessages) {
+            this.resolveMessages = resolveMessages;
+        }
+
+    }
+
+    public static class Metrics {
+
+        /**
+         * Whether the unified responses and handled exceptions are instrumented
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of values of the error code, exception and path tags, the rest are tagged as other
+         */
+        private int maxTagValues = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxTagValues() {
+            return maxTagValues;
+        }
+
+        public void setMaxTagValues(int maxTagValues) {
+            this.maxTagValues = maxTagValues;
+        }
+
+    }
+
+    public static class Converter {
+
+        /**
+         * Whether the unified response converter is registered ahead of the default converters
+         */
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+    }
+
+    public static class TaskDecorator {
+
+        /**
+         * Whether the task decorator is applied to the auto-configured task executor
+         */
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+    }
+
+    public static class Trace {
+
+        /**
+         * Whether the trace id filter is registered
+         */
+        private boolean enabled = true;
+
+        /**
+         * Header carrying the trace id, read when no traceparent header is present
+         */
+        private String headerName = "X-Trace-Id";
+
+        /**
+         * MDC key of the trace id
+         */
+        private String mdcKey = "traceId";
+
+        /**
+         * Whether the trace id is echoed in the response header
+         */
+        private boolean responseHeader = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getHeaderName() {
+            return headerName;
+        }
+
+        public void setHeaderName(String headerName) {
+            this.headerName = headerName;
+        }
+
+        public String getMdcKey() {
+            return mdcKey;
+        }
+
+        public void setMdcKey(String mdcKey) {
+            this.mdcKey = mdcKey;
+        }
+
+        public boolean isResponseHeader() {
+            return responseHeader;
+        }
+
+        public void setResponseHeader(boolean responseHeader) {
+            this.responseHeader = responseHeader;
+        }
+
+    }
+
+    public static class Context {
+
+        /**
+         * Storage of the context, snapshot suits virtual threads and many short-lived threads
+         */
+        private RestResultContextMode mode = RestResultContextMode.THREAD_LOCAL;
+
+        public RestResultContextMode getMode() {
+            return mode;
+        }
+
+        public void setMode(RestResultContextMode mode) {
+            this.mode = mode;
+        }
+
+    }
+
+    public static class Streaming {
+
+        /**
+         * Number of elements written between two flushes of the response
+         */
+        private int flushSize = StreamingRestResult.DEFAULT_FLUSH_SIZE;
+
+        public int getFlushSize() {
+            return flushSize;
+        }
+
+        public void setFlushSize(int flushSize) {
+            this.flushSize = flushSize;
+        }
+
+    }
+
+    public static class Cache {
+
+        /**
+         * Whether the handlers annotated with {@code CachedRestResult} are served from the cache
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum size of the encoded data held by the local cache
+         */
+        private DataSize localMaxSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Prefix of the keys in the shared store
+         */
+        private String keyPrefix = "lihansir:rest-result:";
+
+        /**
+         * Expiry of the load lock in the shared store, bounds the wait after a node dies while loading
+         */
+        private Duration lockTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Maximum wait for another request loading the same key, on this node or another one polling the shared
+         * store, the handler runs uncached afterwards
+         */
+        private Duration lockWait = Duration.ofSeconds(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DataSize getLocalMaxSize() {
+            return localMaxSize;
+        }
+
+        public void setLocalMaxSize(DataSize localMaxSize) {
+            this.localMaxSize = localMaxSize;
+        }
+
+        public String getKeyPrefix() {
+            return keyPrefix;
+        }
+
+        public void setKeyPrefix(String keyPrefix) {
+            this.keyPrefix = keyPrefix;
+        }
+
+        public Duration getLockTimeout() {
+            return lockTimeout;
+        }
+
+        public void setLockTimeout(Duration lockTimeout) {
+            this.lockTimeout = lockTimeout;
+        }
+
+        public Duration getLockWait() {
+            return lockWait;
+        }
+
+        public void setLockWait(Duration lockWait) {
+            this.lockWait = lockWait;
+        }
+
+    }
+
+    public static class CircuitBreaker {
+
+        /**
+         * Whether the handlers are short-circuited once their error rate trips the breaker
+         */
+        private boolean enabled = false;
+
+        /**
+         * Sliding window of the error rate
+         */
+        private Duration window = Duration.ofSeconds(10);
+
+        /**
+         * Number of buckets the window is split into
+         */
+        private int buckets = 10;
+
+        /**
+         * Interval of the evaluation of the error rates and of the flush of the counters to the shared store
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * Requests a handler needs within the window before its error rate is considered
+         */
+        private int minimumRequests = 20;
+
+        /**
+         * Share of the requests failing with one error code that opens the breaker
+         */
+        private double errorRateThreshold = 0.5;
+
+        /**
+         * Error codes counted as failures, every code when empty
+         */
+        private List<String> errorCodes = new ArrayList<>(
+                Collections.singletonList(CommonCode.PROGRAM_EXECUTION_EXCEPTION.getErrorCode()));
+
+        /**
+         * Time a handler stays short-circuited before requests are let through again
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        /**
+         * Requests let through after the open duration, the breaker closes once they all completed without failing
+         * and hands out new ones when they did not complete within another open duration
+         */
+        private int halfOpenRequests = 5;
+
+        /**
+         * Http status of a short-circuited request
+         */
+        private int status = 503;
+
+        /**
+         * Error code of a short-circuited request, the code that opened the breaker when not set
+         */
+        private String errorCode;
+
+        /**
+         * Error message of a short-circuited request
+         */
+        private String errorMessage = "Service temporarily unavailable, please retry later";
+
+        /**
+         * Whether the counters are aggregated across the nodes through redis, when a connection is configured
+         */
+        private boolean shared = true;
+
+        /**
+         * Prefix of the keys in the shared store
+         */
+        private String keyPrefix = "lihansir:rest-result:circuit-breaker:";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getBuckets() {
+            return buckets;
+        }
+
+        public void setBuckets(int buckets) {
+            this.buckets = buckets;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getMinimumRequests() {
+            return minimumRequests;
+        }
+
+        public void setMinimumRequests(int minimumRequests) {
+            this.minimumRequests = minimumRequests;
+        }
+
+        public double getErrorRateThreshold() {
+            return errorRateThreshold;
+        }
+
+        public void setErrorRateThreshold(double errorRateThreshold) {
+            this.errorRateThreshold = errorRateThreshold;
+        }
+
+        public List<String> getErrorCodes() {
+            return errorCodes;
+        }
+
+        public void setErrorCodes(List<String> errorCodes) {
+            this.errorCodes = errorCodes;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public int getHalfOpenRequests() {
+            return halfOpenRequests;
+        }
+
+        public void setHalfOpenRequests(int halfOpenRequests) {
+            this.halfOpenRequests = halfOpenRequests;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public void setStatus(int status) {
+            this.status = status;
+        }
+
+        public String getErrorCode() {
+            return errorCode;
+        }
+
+        public void setErrorCode(String errorCode) {
+            this.errorCode = errorCode;
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+
+        public void setErrorMessage(String errorMessage) {
+            this.errorMessage = errorMessage;
+        }
+
+        public boolean isShared() {
+            return shared;
+        }
+
+        public void setShared(boolean shared) {
+            this.shared = shared;
+        }
+
+        public String getKeyPrefix() {
+            return keyPrefix;
+        }
+
+        public void setKeyPrefix(String keyPrefix) {
+            this.keyPrefix = keyPrefix;
+        }
+
+    }
+
+    public static class NotFound {
+
+        /**
+         * Maximum length of the path logged, counted and echoed
+         */
+        private int maxPathLength = 128;
+
+        /**
+         * Number of recently seen paths counted, only the first occurrence of a path is logged
+         */
+        private int maxTrackedPaths = 1024;
+
+        /**
+         * Requests without a handler allowed per client and second, 0 disables the throttling. Clients are told apart
+         * by their remote address, behind a proxy set {@code server.forward-headers-strategy} so that it is the
+         * forwarded one
+         */
+        private double clientPermitsPerSecond = 0;
+
+        /**
+         * Requests without a handler a client may send at once
+         */
+        private int clientBurst = 40;
+
+        /**
+         * Number of clients throttled separately, the rest share one bucket
+         */
+        private int maxClients = 10000;
+
+        public int getMaxPathLength() {
+            return maxPathLength;
+        }
+
+        public void setMaxPathLength(int maxPathLength) {
+            this.maxPathLength = maxPathLength;
+        }
+
+        public int getMaxTrackedPaths() {
+            return maxTrackedPaths;
+        }
+
+        public void setMaxTrackedPaths(int maxTrackedPaths) {
+            this.maxTrackedPaths = maxTrackedPaths;
+        }
+
+        public double getClientPermitsPerSecond() {
+            return clientPermitsPerSecond;
+        }
+
+        public void setClientPermitsPerSecond(double clientPermitsPerSecond) {
+            this.clientPermitsPerSecond = clientPermitsPerSecond;
+        }
+
+        public int getClientBurst() {
+            return clientBurst;
+        }
+
+        public void setClientBurst(int clientBurst) {
+            this.clientBurst = clientBurst;
+        }
+
+        public int getMaxClients() {
+            return maxClients;
+        }
+
+        public void setMaxClients(int maxClients) {
+            this.maxClients = maxClients;
+        }
+
+    }
+
+    public static class Host {
+
+        /**
+         * Where the host comes from, none unless enabled so the node name is not exposed by default, a request may
+         * still set its own
+         */
+        private HostSource source = HostSource.NONE;
+
+        /**
+         * Environment variable read by the env source, the host name is used when it is not set
+         */
+        private String envName = "POD_NAME";
+
+        /**
+         * Host used by the value source
+         */
+        private String value;
+
+        public HostSource getSource() {
+            return source;
+        }
+
+        public void setSource(HostSource source) {
+            this.source = source;
+        }
+
+        public String getEnvName() {
+            return envName;
+        }
+
+        public void setEnvName(String envName) {
+            this.envName = envName;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+    }
+
+    public static class Etag {
+
+        /**
+         * Whether GET and HEAD responses carry a weak etag of their data and a matching If-None-Match is answered
+         * with 304
+         */
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+    }
+
+    public static class Compression {
+
+        /**
+         * Whether the responses are gzip compressed for the clients accepting it. Gzip is the only coding, brotli is
+         * not supported as the JDK has no encoder for it, a client accepting only br gets an uncompressed response
+         */
+        private boolean enabled = false;
+
+        /**
+         * Minimum size of the data of a compressed response
+         */
+        private DataSize minSize = DataSize.ofKilobytes(2);
+
+        /**
+         * Deflate level, from 1 for the fastest to 9 for the smallest output
+         */
+        private int level = 1;
+
+        /**
+         * Maximum number of idle deflaters, and of idle data buffers, kept for reuse
+         */
+        private int poolSize = 32;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DataSize getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(DataSize minSize) {
+            this.minSize = minSize;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(int level) {
+            this.level = level;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.autoconfigure;
+
+import com.lihansir.platform.starter.context.RestResultContextMode;
+import com.lihansir.platform.starter.context.RestResultHolder;
+import com.lihansir.platform.starter.serializer.RestResultSerializer;
+import com.lihansir.platform.starter.serializer.RestResultSerializers;
+import com.lihansir.platform.starter.utils.HostUtil;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.function.Supplier;
+
+/**
+ * Applies the process wide settings, context mode, default host and serializer, when the application context starts
+ * and restores the defaults when it closes, so a context started later in the same JVM does not inherit them
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class RestResultStaticInitializer implements InitializingBean, DisposableBean {
+
+    private final RestResultProperties properties;
+
+    private final Supplier<RestResultSerializer> serializer;
+
+    public RestResultStaticInitializer(RestResultProperties properties, Supplier<RestResultSerializer> serializer) {
+        this.properties = properties;
+        this.serializer = serializer;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        RestResultHolder.setMode(properties.getContext().getMode());
+        RestResultProperties.Host host = properties.getHost();
+        RestResultHolder.setDefaultHost(HostUtil.resolve(host.getSource(), host.getEnvName(), host.getValue()));
+        RestResultSerializers.set(serializer.get());
+    }
+
+    @Override
+    public void destroy() {
+        RestResultHolder.setMode(RestResultContextMode.THREAD_LOCAL);
+        RestResultHolder.setDefaultHost(null);
+        RestResultSerializers.set(null);
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.breaker;
+
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis counters of the circuit breaker, one hash per bucket. The increments of a flush and the reads of the window
+ * go through one pipeline, so a node makes a single round trip per flush whatever its traffic
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class RedisRestResultCircuitBreakerStore implements RestResultCircuitBreakerStore {
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String keyPrefix;
+
+    public RedisRestResultCircuitBreakerStore(RedisConnectionFactory connectionFactory, String keyPrefix) {
+        StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+        template.afterPropertiesSet();
+        this.redisTemplate = template;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public List<Map<String, Long>> exchange(Map<Long, Map<String, Long>> counts, long firstBucket, long lastBucket,
+                                            Duration ttl) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>)connection -> {
+            for (Map.Entry<Long, Map<String, Long>> bucket : counts.entrySet()) {
+                byte[] key = key(bucket.getKey());
+                for (Map.Entry<String, Long> field : bucket.getValue().entrySet()) {
+                    connection.hIncrBy(key, field.getKey().getBytes(StandardCharsets.UTF_8), field.getValue());
+                }
+                connection.pExpire(key, ttl.toMillis());
+            }
+            for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+                connection.hGetAll(key(bucket));
+            }
+            return null;
+        });
+        int buckets = (int)(lastBucket - firstBucket + 1);
+        List<Map<String, Long>> window = new ArrayList<>(buckets);
+        for (int i = results.size() - buckets; i < results.size(); i++) {
+            window.add(counters(results.get(i)));
+        }
+        return window;
+    }
+
+    private byte[] key(long bucket) {
+        return (keyPrefix + bucket).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Long> counters(Object result) {
+        if (!(result instanceof Map) || ((Map<?, ?>)result).isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<?, ?> hash = (Map<?, ?>)result;
+        Map<String, Long> counters = new HashMap<>(hash.size() * 2);
+        for (Map.Entry<?, ?> entry : hash.entrySet()) {
+            counters.put(text(entry.getKey()), Long.parseLong(text(entry.getValue())));
+        }
+        return counters;
+    }
+
+    private static String text(Object value) {
+        return value instanceof byte[] ? new String((byte[])value, StandardCharsets.UTF_8) : String.valueOf(value);
+    }
+
+}
@@ -0,0 +1,582 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.breaker;
+
+import com.lihansir.platform.starter.advice.RestResultIndex;
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import com.lihansir.platform.starter.context.RestResultContextView;
+import com.lihansir.platform.starter.converter.EncodedRestResult;
+import com.lihansir.platform.starter.converter.ErrorResponseTemplates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker of the handlers, counting the requests and the errors per error code in a sliding window of
+ * buckets. A request only reads the state of its handler and increments striped counters, the error rates are
+ * evaluated and the counters flushed to the shared store by a single background thread
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class RestResultCircuitBreaker implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RestResultCircuitBreaker.class);
+
+    /**
+     * Error code the errors are counted under once a handler reached {@link #MAX_ERROR_CODES}
+     */
+    private static final String OTHER_CODE = "*";
+
+    private static final int MAX_ERROR_CODES = 32;
+
+    private static final char FIELD_SEPARATOR = '|';
+
+    /**
+     * State of the breaker of a handler
+     */
+    public enum State {
+
+        /**
+         * Requests go through
+         */
+        CLOSED,
+
+        /**
+         * Requests are short-circuited
+         */
+        OPEN,
+
+        /**
+         * A few requests go through to probe the handler
+         */
+        HALF_OPEN
+
+    }
+
+    private final RestResultProperties.CircuitBreaker properties;
+
+    private final RestResultCircuitBreakerStore store;
+
+    private final Clock clock;
+
+    private final int buckets;
+
+    private final long bucketMillis;
+
+    private final Set<String> errorCodes;
+
+    private final ConcurrentMap<Method, Endpoint> endpoints = new ConcurrentHashMap<>(256);
+
+    private final ConcurrentMap<String, Endpoint> endpointsByKey = new ConcurrentHashMap<>(256);
+
+    private final LongAdder shortCircuited = new LongAdder();
+
+    private ScheduledExecutorService executor;
+
+    private boolean storeFailing;
+
+    public RestResultCircuitBreaker(RestResultProperties.CircuitBreaker properties,
+                                    RestResultCircuitBreakerStore store) {
+        this(properties, store, Clock.systemUTC());
+    }
+
+    /**
+     * Circuit breaker with the given clock, the buckets of the nodes line up as long as their clocks do
+     *
+     * @param properties circuit breaker properties
+     * @param store      shared counters
+     * @param clock      clock
+     */
+    public RestResultCircuitBreaker(RestResultProperties.CircuitBreaker properties,
+                                    RestResultCircuitBreakerStore store, Clock clock) {
+        this.properties = properties;
+        this.store = store;
+        this.clock = clock;
+        this.buckets = Math.max(1, properties.getBuckets());
+        this.bucketMillis = Math.max(1, properties.getWindow().toMillis() / buckets);
+        this.errorCodes = new HashSet<>(properties.getErrorCodes());
+        ErrorResponseTemplates.register(properties.getErrorCode(), properties.getErrorMessage());
+    }
+
+    /**
+     * Start evaluating the error rates every flush interval
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rest-result-circuit-breaker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, properties.getFlushInterval().toMillis());
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                evaluate();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Circuit breaker evaluation failed：【{}】", e.toString());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Breaker of a handler
+     *
+     * @param method handler method
+     * @return endpoint
+     */
+    public Endpoint endpoint(Method method) {
+        Endpoint endpoint = endpoints.get(method);
+        if (endpoint == null) {
+            endpoint = endpoints.computeIfAbsent(method, key -> {
+                Endpoint created = new Endpoint(RestResultIndex.methodKey(key));
+                endpointsByKey.put(created.key, created);
+                return created;
+            });
+        }
+        return endpoint;
+    }
+
+    /**
+     * Let a request to a handler through, counting it
+     *
+     * @param endpoint breaker of the handler
+     * @return false when the request is to be short-circuited
+     */
+    public boolean tryAcquire(Endpoint endpoint) {
+        State state = endpoint.state;
+        if (state == State.OPEN || state == State.HALF_OPEN && !endpoint.probes.tryAcquire()) {
+            shortCircuited.increment();
+            return false;
+        }
+        Bucket bucket = endpoint.bucket(clock.millis() / bucketMillis);
+        if (bucket != null) {
+            bucket.requests.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Count an error of a request let through
+     *
+     * @param endpoint  breaker of the handler
+     * @param errorCode error code of the response
+     */
+    public void recordError(Endpoint endpoint, String errorCode) {
+        if (errorCode == null || !errorCodes.isEmpty() && !errorCodes.contains(errorCode)) {
+            return;
+        }
+        if (endpoint.state == State.HALF_OPEN) {
+            endpoint.probes.recordError(errorCode);
+        }
+        Bucket bucket = endpoint.bucket(clock.millis() / bucketMillis);
+        if (bucket == null) {
+            return;
+        }
+        LongAdder errors = bucket.errors.get(errorCode);
+        if (errors == null) {
+            String code = bucket.errors.size() < MAX_ERROR_CODES ? errorCode : OTHER_CODE;
+            errors = bucket.errors.computeIfAbsent(code, key -> new LongAdder());
+        }
+        errors.increment();
+    }
+
+    /**
+     * Count the completion of a request let through, the probes of a half-open breaker are counted when they complete
+     *
+     * @param endpoint breaker of the handler
+     */
+    public void recordCompletion(Endpoint endpoint) {
+        if (endpoint.state == State.HALF_OPEN) {
+            endpoint.probes.recordCompletion();
+        }
+    }
+
+    /**
+     * Response of a short-circuited request
+     *
+     * @param endpoint breaker of the handler
+     * @param context  request context
+     * @return pre-encoded response
+     */
+    public EncodedRestResult shortCircuit(Endpoint endpoint, RestResultContextView context) {
+        String errorCode = properties.getErrorCode() != null ? properties.getErrorCode() : endpoint.trippedCode;
+        return ErrorResponseTemplates.failed(errorCode, properties.getErrorMessage(), context);
+    }
+
+    /**
+     * Seconds a client should wait before retrying a short-circuited request
+     *
+     * @param endpoint breaker of the handler
+     * @return seconds, at least one
+     */
+    public long retryAfterSeconds(Endpoint endpoint) {
+        long remaining = endpoint.openUntil - clock.millis();
+        return Math.max(1, (remaining + 999) / 1000);
+    }
+
+    public int getStatus() {
+        return properties.getStatus();
+    }
+
+    /**
+     * State of the breaker of a handler
+     *
+     * @param method handler method
+     * @return state, closed for a handler not called yet
+     */
+    public State getState(Method method) {
+        Endpoint endpoint = endpoints.get(method);
+        return endpoint == null ? State.CLOSED : endpoint.state;
+    }
+
+    /**
+     * Number of the short-circuited requests
+     *
+     * @return short-circuited request count
+     */
+    public long getShortCircuitedCount() {
+        return shortCircuited.sum();
+    }
+
+    /**
+     * Flush the counters to the shared store and move the breakers between states, run by the background thread
+     * every flush interval
+     */
+    public synchronized void evaluate() {
+        long now = clock.millis();
+        long lastBucket = now / bucketMillis;
+        long firstBucket = lastBucket - buckets + 1;
+        Map<Long, Map<String, Long>> counts = new HashMap<>(buckets * 2);
+        for (Endpoint endpoint : endpointsByKey.values()) {
+            endpoint.drain(counts);
+        }
+        Map<Endpoint, Tally> shared = shared(counts, firstBucket, lastBucket);
+        for (Endpoint endpoint : endpointsByKey.values()) {
+            switch (endpoint.state) {
+                case CLOSED:
+                    Tally tally = shared != null ? shared.get(endpoint) : endpoint.tally(firstBucket, lastBucket);
+                    String code = tally == null ? null : tally.trippedCode(properties.getMinimumRequests());
+                    if (code != null) {
+                        open(endpoint, now, code, tally);
+                    }
+                    break;
+                case OPEN:
+                    if (now >= endpoint.openUntil) {
+                        endpoint.since = lastBucket;
+                        endpoint.probes = new Probes(properties.getHalfOpenRequests(), now);
+                        endpoint.state = State.HALF_OPEN;
+                    }
+                    break;
+                default:
+                    Probes probes = endpoint.probes;
+                    Tally probeTally = probes.tally();
+                    String probeCode = probeTally.trippedCode(1);
+                    if (probeCode != null) {
+                        open(endpoint, now, probeCode, probeTally);
+                    } else if (probes.completed.get() >= probes.permits) {
+                        endpoint.state = State.CLOSED;
+                        LOGGER.info("Circuit breaker closed：【{}】", endpoint.key);
+                    } else if (now - probes.startedAt >= properties.getOpenDuration().toMillis()) {
+                        // probes lost or not sent in time, hand out a new round instead of waiting forever
+                        endpoint.probes = new Probes(properties.getHalfOpenRequests(), now);
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void open(Endpoint endpoint, long now, String code, Tally tally) {
+        endpoint.trippedCode = code;
+        if (properties.getErrorCode() == null) {
+            ErrorResponseTemplates.register(code, properties.getErrorMessage());
+        }
+        endpoint.openUntil = now + properties.getOpenDuration().toMillis();
+        endpoint.state = State.OPEN;
+        LOGGER.warn("Circuit breaker opened：【{}】,Error code：【{}】,Errors：【{}/{}】", endpoint.key, code,
+                tally.errors.get(code), tally.requests);
+    }
+
+    /**
+     * Counters of every node by handler, null when nothing is shared or the store failed
+     */
+    private Map<Endpoint, Tally> shared(Map<Long, Map<String, Long>> counts, long firstBucket, long lastBucket) {
+        if (!properties.isShared() || store == RestResultCircuitBreakerStore.NONE) {
+            return null;
+        }
+        List<Map<String, Long>> window;
+        try {
+            window = store.exchange(counts, firstBucket, lastBucket,
+                    Duration.ofMillis(bucketMillis * (buckets + 2)));
+        } catch (RuntimeException e) {
+            if (!storeFailing) {
+                storeFailing = true;
+                LOGGER.warn("Circuit breaker store failed, falling back to the local counters：【{}】", e.toString());
+            }
+            return null;
+        }
+        if (storeFailing) {
+            storeFailing = false;
+            LOGGER.info("Circuit breaker store recovered");
+        }
+        if (window == null) {
+            return null;
+        }
+        Map<Endpoint, Tally> tallies = new HashMap<>(endpointsByKey.size() * 2);
+        for (int i = 0; i < window.size(); i++) {
+            long bucket = firstBucket + i;
+            for (Map.Entry<String, Long> counter : window.get(i).entrySet()) {
+                String field = counter.getKey();
+                int separator = field.lastIndexOf(FIELD_SEPARATOR);
+                Endpoint endpoint = endpointsByKey.get(separator < 0 ? field : field.substring(0, separator));
+                if (endpoint == null || bucket < endpoint.since) {
+                    continue;
+                }
+                Tally tally = tallies.computeIfAbsent(endpoint, key -> new Tally());
+                if (separator < 0) {
+                    tally.requests += counter.getValue();
+                } else {
+                    String code = field.substring(separator + 1);
+                    if (errorCodes.isEmpty() || errorCodes.contains(code)) {
+                        tally.errors.merge(code, counter.getValue(), Long::sum);
+                    }
+                }
+            }
+        }
+        return tallies;
+    }
+
+    /**
+     * Breaker of a handler
+     */
+    public final class Endpoint {
+
+        private final String key;
+
+        private final AtomicReferenceArray<Bucket> window = new AtomicReferenceArray<>(buckets);
+
+        /**
+         * Probes of the current half-open episode, counted apart from the window
+         */
+        private volatile Probes probes = new Probes(0, 0);
+
+        private volatile State state = State.CLOSED;
+
+        private volatile long openUntil;
+
+        private volatile String trippedCode;
+
+        /**
+         * First bucket counted, the buckets before the breaker last went half-open are ignored
+         */
+        private volatile long since = Long.MIN_VALUE;
+
+        private Endpoint(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        RestResultCircuitBreaker getCircuitBreaker() {
+            return RestResultCircuitBreaker.this;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * Bucket of the given index, replacing the expired one in its slot, null for an index already rotated out
+         */
+        private Bucket bucket(long index) {
+            int slot = (int)(index % buckets);
+            while (true) {
+                Bucket bucket = window.get(slot);
+                if (bucket != null && bucket.index >= index) {
+                    return bucket.index == index ? bucket : null;
+                }
+                Bucket created = new Bucket(index);
+                if (window.compareAndSet(slot, bucket, created)) {
+                    return created;
+                }
+            }
+        }
+
+        /**
+         * Add the counts since the last drain, only called by the evaluating thread
+         */
+        private void drain(Map<Long, Map<String, Long>> counts) {
+            for (int i = 0; i < buckets; i++) {
+                Bucket bucket = window.get(i);
+                if (bucket == null) {
+                    continue;
+                }
+                long requests = bucket.requests.sum();
+                if (requests != bucket.drainedRequests) {
+                    counts.computeIfAbsent(bucket.index, key -> new HashMap<>()).merge(this.key,
+                            requests - bucket.drainedRequests, Long::sum);
+                    bucket.drainedRequests = requests;
+                }
+                for (Map.Entry<String, LongAdder> errors : bucket.errors.entrySet()) {
+                    long count = errors.getValue().sum();
+                    long drained = bucket.drainedErrors.getOrDefault(errors.getKey(), 0L);
+                    if (count != drained) {
+                        counts.computeIfAbsent(bucket.index, key -> new HashMap<>()).merge(
+                                this.key + FIELD_SEPARATOR + errors.getKey(), count - drained, Long::sum);
+                        bucket.drainedErrors.put(errors.getKey(), count);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Local counts of the window
+         */
+        private Tally tally(long firstBucket, long lastBucket) {
+            Tally tally = new Tally();
+            long from = Math.max(firstBucket, since);
+            for (int i = 0; i < buckets; i++) {
+                Bucket bucket = window.get(i);
+                if (bucket == null || bucket.index < from || bucket.index > lastBucket) {
+                    continue;
+                }
+                tally.requests += bucket.requests.sum();
+                for (Map.Entry<String, LongAdder> errors : bucket.errors.entrySet()) {
+                    tally.errors.merge(errors.getKey(), errors.getValue().sum(), Long::sum);
+                }
+            }
+            return tally;
+        }
+
+    }
+
+    /**
+     * Counters of a handler in a bucket of the window
+     */
+    private static final class Bucket {
+
+        private final long index;
+
+        private final LongAdder requests = new LongAdder();
+
+        private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>(4);
+
+        /**
+         * Counts already flushed, only used by the evaluating thread
+         */
+        private long drainedRequests;
+
+        private final Map<String, Long> drainedErrors = new HashMap<>(4);
+
+        private Bucket(long index) {
+            this.index = index;
+        }
+
+    }
+
+    /**
+     * Probes of one half-open episode of a handler
+     */
+    private final class Probes {
+
+        private final int permits;
+
+        private final long startedAt;
+
+        private final AtomicInteger remaining;
+
+        private final AtomicInteger completed = new AtomicInteger();
+
+        private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>(4);
+
+        private Probes(int permits, long startedAt) {
+            this.permits = Math.max(1, permits);
+            this.startedAt = startedAt;
+            this.remaining = new AtomicInteger(this.permits);
+        }
+
+        private boolean tryAcquire() {
+            return remaining.get() > 0 && remaining.getAndDecrement() > 0;
+        }
+
+        private void recordError(String errorCode) {
+            errors.computeIfAbsent(errorCode, key -> new LongAdder()).increment();
+        }
+
+        /**
+         * Count a completed probe, never more than the probes handed out
+         */
+        private void recordCompletion() {
+            int handedOut = permits - Math.max(remaining.get(), 0);
+            completed.accumulateAndGet(1, (count, one) -> count < handedOut ? count + one : count);
+        }
+
+        /**
+         * Counts of the completed probes
+         */
+        private Tally tally() {
+            Tally tally = new Tally();
+            tally.requests = completed.get();
+            errors.forEach((code, count) -> tally.errors.put(code, count.sum()));
+            return tally;
+        }
+
+    }
+
+    /**
+     * Counts of a handler over the window
+     */
+    private final class Tally {
+
+        private long requests;
+
+        private final Map<String, Long> errors = new HashMap<>(4);
+
+        /**
+         * Error code whose rate reaches the threshold, null when none does
+         */
+        String trippedCode(int minimumRequests) {
+            if (requests <= 0 || requests < minimumRequests) {
+                return null;
+            }
+            for (Map.Entry<String, Long> error : errors.entrySet()) {
+                if (error.getValue() >= properties.getErrorRateThreshold() * requests) {
+                    return error.getKey();
+                }
+            }
+            return null;
+        }
+
+    }
+
+}
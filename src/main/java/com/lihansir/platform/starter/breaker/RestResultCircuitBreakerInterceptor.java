@@ -0,0 +1,77 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.breaker;
+
+import com.lihansir.platform.starter.context.RestResultHolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Short-circuits the requests to the handlers whose breaker is open. The breaker of a request let through is left in
+ * a request attribute, the global exception handler counts the errors against it and the completion is counted once
+ * the request is done
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class RestResultCircuitBreakerInterceptor implements HandlerInterceptor {
+
+    /**
+     * Request attribute holding the {@link RestResultCircuitBreaker.Endpoint} of the current request
+     */
+    public static final String ENDPOINT_ATTRIBUTE = RestResultCircuitBreakerInterceptor.class.getName() + ".endpoint";
+
+    private final RestResultCircuitBreaker circuitBreaker;
+
+    public RestResultCircuitBreakerInterceptor(RestResultCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Count an error of the current request, nothing is done for a request the breaker did not see
+     *
+     * @param request   http request
+     * @param errorCode error code of the response
+     */
+    public static void recordError(HttpServletRequest request, String errorCode) {
+        Object endpoint = request.getAttribute(ENDPOINT_ATTRIBUTE);
+        if (endpoint != null) {
+            RestResultCircuitBreaker.Endpoint breaker = (RestResultCircuitBreaker.Endpoint)endpoint;
+            breaker.getCircuitBreaker().recordError(breaker, errorCode);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        RestResultCircuitBreaker.Endpoint endpoint = circuitBreaker.endpoint(((HandlerMethod)handler).getMethod());
+        if (circuitBreaker.tryAcquire(endpoint)) {
+            request.setAttribute(ENDPOINT_ATTRIBUTE, endpoint);
+            return true;
+        }
+        response.setStatus(circuitBreaker.getStatus());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(circuitBreaker.retryAfterSeconds(endpoint)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        circuitBreaker.shortCircuit(endpoint, RestResultHolder.current()).writeTo(response.getOutputStream());
+        return false;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object endpoint = request.getAttribute(ENDPOINT_ATTRIBUTE);
+        if (endpoint != null) {
+            circuitBreaker.recordCompletion((RestResultCircuitBreaker.Endpoint)endpoint);
+        }
+    }
+
+}
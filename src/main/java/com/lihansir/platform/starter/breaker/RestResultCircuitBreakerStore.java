@@ -0,0 +1,38 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.breaker;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared counters of the circuit breaker, aggregating the error rates of the nodes. The counters of a bucket are
+ * keyed by field, the handler key for its requests and the handler key, a {@code |} and the error code for its errors
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public interface RestResultCircuitBreakerStore {
+
+    /**
+     * Nothing shared, every node decides on its own counters
+     */
+    RestResultCircuitBreakerStore NONE = new RestResultCircuitBreakerStore() {};
+
+    /**
+     * Add the counters of this node and read the counters of every node, in a single exchange with the backend
+     *
+     * @param counts      counters added by this node since the last exchange, by bucket and field
+     * @param firstBucket first bucket of the window
+     * @param lastBucket  current bucket
+     * @param ttl         time to live of a bucket
+     * @return counters of every node, one map per bucket from the first to the last, null when nothing is shared
+     */
+    default List<Map<String, Long>> exchange(Map<Long, Map<String, Long>> counts, long firstBucket, long lastBucket,
+                                             Duration ttl) {
+        return null;
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.cache;
+
+import com.lihansir.platform.starter.context.TraceIdGenerator;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * Redis second level of the response cache, loads are coordinated with a SET NX lock per key
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class RedisRestResultCacheStore implements RestResultCacheStore {
+
+    private static final String LOCK_SUFFIX = ":lock";
+
+    /**
+     * Delete the lock only when it is still held with the given token
+     */
+    private static final RedisScript<Long> UNLOCK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+
+    public RedisRestResultCacheStore(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        this.redisTemplate = template;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        return redisTemplate.opsForValue().get(key);
+    }
+
+    @Override
+    public void put(String key, byte[] data, Duration ttl) {
+        redisTemplate.opsForValue().set(key, data, ttl);
+    }
+
+    @Override
+    public String tryLock(String key, Duration ttl) {
+        String token = TraceIdGenerator.generate();
+        Boolean locked = redisTemplate.opsForValue()
+                .setIfAbsent(key + LOCK_SUFFIX, token.getBytes(StandardCharsets.UTF_8), ttl);
+        return Boolean.TRUE.equals(locked) ? token : null;
+    }
+
+    @Override
+    public void unlock(String key, String token) {
+        redisTemplate.execute(UNLOCK, Collections.singletonList(key + LOCK_SUFFIX),
+                (Object)token.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Two level cache of encoded response data: a local cache bounded by size in front of a shared store
+ *
+ * <p>Only one request per cluster and key loads the data at a time. Concurrent requests on the same node wait for the
+ * local load, a node finding the load lock held by another node polls the shared store with a growing backoff, both
+ * within the lock wait. The data is loaded without the lock once the wait is over. Failures of the shared store
+ * degrade to the local cache.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class RestResultCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RestResultCache.class);
+
+    private static final long MIN_POLL_MILLIS = 10;
+
+    private static final long MAX_POLL_MILLIS = 200;
+
+    private final Cache<String, Entry> local;
+
+    private final RestResultCacheStore store;
+
+    private final ConcurrentMap<String, CompletableFuture<byte[]>> loads = new ConcurrentHashMap<>(64);
+
+    private final String keyPrefix;
+
+    private final Duration lockTimeout;
+
+    private final long lockWaitMillis;
+
+    public RestResultCache(RestResultProperties.Cache properties, RestResultCacheStore store) {
+        this(properties, store, Ticker.systemTicker());
+    }
+
+    /**
+     * Cache whose local entries expire by the given ticker
+     *
+     * @param properties cache properties
+     * @param store      shared store
+     * @param ticker     time source of the local expiry
+     */
+    public RestResultCache(RestResultProperties.Cache properties, RestResultCacheStore store, Ticker ticker) {
+        this.local = Caffeine.newBuilder()
+                .maximumWeight(properties.getLocalMaxSize().toBytes())
+                .weigher((String key, Entry entry) -> entry.data.length + key.length())
+                .expireAfter(new EntryExpiry())
+                .ticker(ticker)
+                .build();
+        this.store = store;
+        this.keyPrefix = properties.getKeyPrefix();
+        this.lockTimeout = properties.getLockTimeout();
+        this.lockWaitMillis = properties.getLockWait().toMillis();
+    }
+
+    /**
+     * Look a key up, registering the caller as the loader on a miss
+     *
+     * @param key      cache key, without the prefix
+     * @param ttl      time to live of the data
+     * @param useLocal whether the local cache is used
+     * @return cached data or the load to complete
+     */
+    public Lookup lookup(String key, Duration ttl, boolean useLocal) {
+        String cacheKey = keyPrefix + key;
+        byte[] data = get(cacheKey, useLocal);
+        if (data != null) {
+            return new Lookup(data, null);
+        }
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = loads.putIfAbsent(cacheKey, future);
+        if (running != null) {
+            return new Lookup(await(running), null);
+        }
+        String token = tryLock(cacheKey);
+        if (token == null) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lockWaitMillis);
+            long pause = MIN_POLL_MILLIS;
+            while ((data = get(cacheKey, false)) == null && (token = tryLock(cacheKey)) == null
+                   && sleep(Math.min(pause, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())))) {
+                pause = Math.min(pause * 2, MAX_POLL_MILLIS);
+            }
+            if (data != null) {
+                if (useLocal) {
+                    local.put(cacheKey, new Entry(data, ttl));
+                }
+                loads.remove(cacheKey, future);
+                future.complete(data);
+                return new Lookup(data, null);
+            }
+        }
+        return new Lookup(null, new Load(cacheKey, ttl, useLocal, token, future));
+    }
+
+    /**
+     * Drop a key from the local cache of this node
+     *
+     * @param key cache key, without the prefix
+     */
+    public void evictLocal(String key) {
+        local.invalidate(keyPrefix + key);
+    }
+
+    private byte[] get(String cacheKey, boolean useLocal) {
+        if (useLocal) {
+            Entry entry = local.getIfPresent(cacheKey);
+            if (entry != null) {
+                return entry.data;
+            }
+        }
+        try {
+            return store.get(cacheKey);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Response cache store read failed, key：【{}】, cause：【{}】", cacheKey, e.toString());
+            return null;
+        }
+    }
+
+    private String tryLock(String cacheKey) {
+        try {
+            return store.tryLock(cacheKey, lockTimeout);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Response cache store lock failed, key：【{}】, cause：【{}】", cacheKey, e.toString());
+            return "";
+        }
+    }
+
+    /**
+     * Pause between two polls of the shared store
+     *
+     * @return false when the wait is over
+     */
+    private static boolean sleep(long millis) {
+        if (millis <= 0) {
+            return false;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private byte[] await(CompletableFuture<byte[]> running) {
+        try {
+            return running.get(lockWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Result of a lookup, either the cached data or the load the caller is responsible for
+     */
+    public static final class Lookup {
+
+        private final byte[] data;
+
+        private final Load load;
+
+        Lookup(byte[] data, Load load) {
+            this.data = data;
+            this.load = load;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public Load getLoad() {
+            return load;
+        }
+
+    }
+
+    /**
+     * Load of a key by the current request, completed with the encoded data or abandoned
+     */
+    public final class Load {
+
+        private final String cacheKey;
+
+        private final Duration ttl;
+
+        private final boolean useLocal;
+
+        private final String token;
+
+        private final CompletableFuture<byte[]> future;
+
+        Load(String cacheKey, Duration ttl, boolean useLocal, String token, CompletableFuture<byte[]> future) {
+            this.cacheKey = cacheKey;
+            this.ttl = ttl;
+            this.useLocal = useLocal;
+            this.token = token;
+            this.future = future;
+        }
+
+        /**
+         * Cache the data and hand it to the waiting requests
+         *
+         * @param data encoded data
+         */
+        public void complete(byte[] data) {
+            if (useLocal) {
+                local.put(cacheKey, new Entry(data, ttl));
+            }
+            try {
+                store.put(cacheKey, data, ttl);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Response cache store write failed, key：【{}】, cause：【{}】", cacheKey, e.toString());
+            }
+            finish(data);
+        }
+
+        /**
+         * Give up the load, the waiting requests run their handlers themselves
+         */
+        public void abandon() {
+            finish(null);
+        }
+
+        private void finish(byte[] data) {
+            loads.remove(cacheKey, future);
+            future.complete(data);
+            if (token != null && !token.isEmpty()) {
+                try {
+                    store.unlock(cacheKey, token);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Response cache store unlock failed, key：【{}】, cause：【{}】", cacheKey, e.toString());
+                }
+            }
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final byte[] data;
+
+        private final long ttlNanos;
+
+        Entry(byte[] data, Duration ttl) {
+            this.data = data;
+            this.ttlNanos = ttl.toNanos();
+        }
+
+    }
+
+    /**
+     * Expires every entry after its own time to live
+     */
+    private static final class EntryExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return entry.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return entry.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.cache;
+
+import com.lihansir.platform.starter.advice.HandlerDecision;
+import com.lihansir.platform.starter.annotation.CachedRestResult;
+import com.lihansir.platform.starter.context.RestResultHolder;
+import com.lihansir.platform.starter.converter.EncodedResponseWriter;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Serves the handlers annotated with {@link CachedRestResult} from the response cache. On a miss the load is left in
+ * a request attribute, the response body advice completes it with the encoded data
+ *
+ * <p>Hits are served in {@code preHandle}, the interceptor is to be ordered after the ones checking the request,
+ * authentication and tenant checks in particular. Authenticated requests bypass the cache unless the handler opts in,
+ * their key then holds the principal and a digest of the Authorization header.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class RestResultCacheInterceptor implements HandlerInterceptor {
+
+    /**
+     * Request attribute holding the {@link RestResultCache.Load} of the current request
+     */
+    public static final String LOAD_ATTRIBUTE = RestResultCacheInterceptor.class.getName() + ".load";
+
+    private final Supplier<RestResultCache> cache;
+
+    private final EncodedResponseWriter responseWriter;
+
+    /**
+     * Wrapping decision of a handler, null when nothing is wrapped
+     */
+    private final Function<HandlerMethod, HandlerDecision> decisions;
+
+    private final ConcurrentMap<Method, Optional<CacheRule>> rules = new ConcurrentHashMap<>(256);
+
+    public RestResultCacheInterceptor(RestResultCache cache) {
+        this(() -> cache);
+    }
+
+    /**
+     * Interceptor resolving the cache on the first request to a cached handler
+     *
+     * @param cache cache supplier
+     */
+    public RestResultCacheInterceptor(Supplier<RestResultCache> cache) {
+        this(cache, new EncodedResponseWriter());
+    }
+
+    /**
+     * Interceptor writing the cached responses with the etag and compression of the given writer
+     *
+     * @param cache          cache supplier
+     * @param responseWriter writer of the cached responses
+     */
+    public RestResultCacheInterceptor(Supplier<RestResultCache> cache, EncodedResponseWriter responseWriter) {
+        this(cache, responseWriter, handlerMethod -> HandlerDecision.of(handlerMethod.getMethod()));
+    }
+
+    /**
+     * Interceptor caching the handlers wrapped by the given decisions, the ones of the response body advice
+     *
+     * @param cache          cache supplier
+     * @param responseWriter writer of the cached responses
+     * @param decisions      wrapping decision of a handler, null when nothing is wrapped
+     */
+    public RestResultCacheInterceptor(Supplier<RestResultCache> cache, EncodedResponseWriter responseWriter,
+                                      Function<HandlerMethod, HandlerDecision> decisions) {
+        this.cache = cache;
+        this.responseWriter = responseWriter;
+        this.decisions = decisions;
+    }
+
+    /**
+     * Take the load of the current request, so it is completed only once
+     *
+     * @param request http request
+     * @return load, null when the response is not to be cached
+     */
+    public static RestResultCache.Load takeLoad(HttpServletRequest request) {
+        Object load = request.getAttribute(LOAD_ATTRIBUTE);
+        if (load == null) {
+            return null;
+        }
+        request.removeAttribute(LOAD_ATTRIBUTE);
+        return (RestResultCache.Load)load;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (!(handler instanceof HandlerMethod) || !isCacheable(request)) {
+            return true;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod)handler;
+        Method method = handlerMethod.getMethod();
+        Optional<CacheRule> rule = rules.get(method);
+        if (rule == null) {
+            rule = rules.computeIfAbsent(method, key -> CacheRule.of(key, decisions.apply(handlerMethod)));
+        }
+        if (!rule.isPresent()) {
+            return true;
+        }
+        boolean authenticated = isAuthenticated(request);
+        if (authenticated && !rule.get().authenticated) {
+            return true;
+        }
+        RestResultCache.Lookup lookup = cache.get().lookup(rule.get().key(method, request, authenticated),
+                rule.get().ttl, rule.get().local);
+        if (lookup.getData() == null) {
+            if (lookup.getLoad() != null) {
+                request.setAttribute(LOAD_ATTRIBUTE, lookup.getLoad());
+            }
+            return true;
+        }
+        response.setStatus(HttpStatus.OK.value());
+        responseWriter.write(lookup.getData(), new ServletServerHttpRequest(request),
+                new ServletServerHttpResponse(response), RestResultHolder.current());
+        return false;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        RestResultCache.Load load = takeLoad(request);
+        if (load != null) {
+            load.abandon();
+        }
+    }
+
+    private static boolean isCacheable(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method);
+    }
+
+    private static boolean isAuthenticated(HttpServletRequest request) {
+        return request.getHeader(HttpHeaders.AUTHORIZATION) != null || request.getUserPrincipal() != null;
+    }
+
+    /**
+     * Digest of a credential, so that it is not kept in the shared store
+     */
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Cache settings of a handler method
+     */
+    private static final class CacheRule {
+
+        private final Duration ttl;
+
+        private final boolean local;
+
+        private final String[] varyHeaders;
+
+        private final boolean authenticated;
+
+        private CacheRule(CachedRestResult cached) {
+            this.ttl = Duration.ofNanos(cached.timeUnit().toNanos(cached.ttl()));
+            this.local = cached.local();
+            this.varyHeaders = cached.varyHeaders();
+            this.authenticated = cached.authenticated();
+        }
+
+        static Optional<CacheRule> of(Method method, HandlerDecision decision) {
+            if (decision == null || !decision.isWrap() || decision.isRestResultReturn()) {
+                return Optional.empty();
+            }
+            CachedRestResult cached = AnnotatedElementUtils.findMergedAnnotation(method, CachedRestResult.class);
+            if (cached == null) {
+                cached = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), CachedRestResult.class);
+            }
+            return cached == null || cached.ttl() <= 0 ? Optional.empty() : Optional.of(new CacheRule(cached));
+        }
+
+        String key(Method method, HttpServletRequest request, boolean authenticated) {
+            StringBuilder key = new StringBuilder(128).append(method.getDeclaringClass().getName()).append('#')
+                    .append(method.getName()).append(':').append(request.getRequestURI());
+            if (request.getQueryString() != null) {
+                key.append('?').append(request.getQueryString());
+            }
+            for (String header : varyHeaders) {
+                key.append('|').append(header).append('=').append(request.getHeader(header));
+            }
+            if (authenticated) {
+                Principal principal = request.getUserPrincipal();
+                String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+                key.append("|principal=").append(principal == null ? null : principal.getName())
+                        .append("|authorization=").append(authorization == null ? null : digest(authorization));
+            }
+            return key.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.cache;
+
+import java.time.Duration;
+
+/**
+ * Shared second level of the response cache, also coordinating the loads of the nodes. The default methods do
+ * nothing, so an implementation only overrides what its backend supports
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public interface RestResultCacheStore {
+
+    /**
+     * No shared cache, only the local one is used
+     */
+    RestResultCacheStore NONE = new RestResultCacheStore() {};
+
+    /**
+     * Cached data of a key
+     *
+     * @param key cache key
+     * @return encoded data, null when absent
+     */
+    default byte[] get(String key) {
+        return null;
+    }
+
+    /**
+     * Store the data of a key
+     *
+     * @param key  cache key
+     * @param data encoded data
+     * @param ttl  time to live
+     */
+    default void put(String key, byte[] data, Duration ttl) {}
+
+    /**
+     * Try to become the node loading a key
+     *
+     * @param key cache key
+     * @param ttl lock timeout, releasing the lock of a node that went away
+     * @return lock token, null when another node is loading the key
+     */
+    default String tryLock(String key, Duration ttl) {
+        return "";
+    }
+
+    /**
+     * Release a lock obtained by {@link #tryLock(String, Duration)}
+     *
+     * @param key   cache key
+     * @param token lock token
+     */
+    default void unlock(String key, String token) {}
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.context;
+
+import cn.hutool.core.util.StrUtil;
+
+/**
+ * Mutable request context of the unified response, one instance per thread that is reset between requests
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public final class RestResultContext implements RestResultContextView {
+
+    /**
+     * Default error display type, notification
+     */
+    public static final int DEFAULT_ERROR_SHOW_TYPE = 4;
+
+    private String traceId = StrUtil.EMPTY;
+
+    /**
+     * Host of the node, resolved once at startup and shared by every request that sets no host of its own
+     */
+    private static volatile String defaultHost = StrUtil.EMPTY;
+
+    /**
+     * Host set for the request, null for the default host
+     */
+    private String host;
+
+    /**
+     * error display type： 0 silent; 1 message.warn; 2 message.error; 4 notification; 9 page
+     */
+    private int errorShowType = DEFAULT_ERROR_SHOW_TYPE;
+
+    RestResultContext() {}
+
+    @Override
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public void setTraceId(String traceId) {
+        this.traceId = traceId == null ? StrUtil.EMPTY : traceId;
+    }
+
+    /**
+     * Host reported when the request sets none
+     *
+     * @return default host
+     */
+    public static String getDefaultHost() {
+        return defaultHost;
+    }
+
+    static void setDefaultHost(String host) {
+        defaultHost = host == null ? StrUtil.EMPTY : host;
+    }
+
+    @Override
+    public String getHost() {
+        return host == null ? defaultHost : host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    @Override
+    public int getErrorShowType() {
+        return errorShowType;
+    }
+
+    public void setErrorShowType(int errorShowType) {
+        this.errorShowType = errorShowType;
+    }
+
+    /**
+     * Immutable copy of the current values
+     *
+     * @return snapshot
+     */
+    public Snapshot capture() {
+        return new Snapshot(traceId, host, errorShowType);
+    }
+
+    /**
+     * Replace the current values with the ones of a snapshot
+     *
+     * @param snapshot snapshot, null resets the context
+     */
+    public void restore(Snapshot snapshot) {
+        if (snapshot == null) {
+            reset();
+            return;
+        }
+        this.traceId = snapshot.traceId;
+        this.host = snapshot.host;
+        this.errorShowType = snapshot.errorShowType;
+    }
+
+    /**
+     * Reset to the initial values
+     */
+    public void reset() {
+        this.traceId = StrUtil.EMPTY;
+        this.host = null;
+        this.errorShowType = DEFAULT_ERROR_SHOW_TYPE;
+    }
+
+    /**
+     * Immutable values of a context, used to carry them over to another thread
+     */
+    public static final class Snapshot implements RestResultContextView {
+
+        static final Snapshot EMPTY = new Snapshot(StrUtil.EMPTY, null, DEFAULT_ERROR_SHOW_TYPE);
+
+        private final String traceId;
+
+        private final String host;
+
+        private final int errorShowType;
+
+        private Snapshot(String traceId, String host, int errorShowType) {
+            this.traceId = traceId == null ? StrUtil.EMPTY : traceId;
+            this.host = host;
+            this.errorShowType = errorShowType;
+        }
+
+        @Override
+        public String getTraceId() {
+            return traceId;
+        }
+
+        @Override
+        public String getHost() {
+            return host == null ? defaultHost : host;
+        }
+
+        @Override
+        public int getErrorShowType() {
+            return errorShowType;
+        }
+
+        Snapshot withTraceId(String traceId) {
+            return new Snapshot(traceId, host, errorShowType);
+        }
+
+        Snapshot withHost(String host) {
+            return new Snapshot(traceId, host, errorShowType);
+        }
+
+        Snapshot withErrorShowType(int errorShowType) {
+            return new Snapshot(traceId, host, errorShowType);
+        }
+
+    }
+
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.context;
+
+/**
+ * Storage mode of the unified response context
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public enum RestResultContextMode {
+
+    /**
+     * One mutable context per thread, reset and reused between requests, best for pooled platform threads
+     */
+    THREAD_LOCAL,
+
+    /**
+     * An immutable snapshot held in a thread local for the duration of a request and shared by reference with the
+     * tasks it forks, replaced on write. Still a thread local, not a {@code ScopedValue}, but nothing is kept per
+     * thread once the request is over and propagating the context costs no copy, which suits virtual threads and many
+     * short-lived threads
+     */
+    SNAPSHOT
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.context;
+
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Carries the {@link RestResultHolder} context and the MDC of the submitting thread over to the thread running a task
+ *
+ * <p>The context is captured when the task is submitted and restored around its execution, the values of the running
+ * thread are put back afterwards so that pooled threads never keep a stale trace id.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class RestResultContextPropagation {
+
+    public static Runnable wrap(Runnable task) {
+        Captured captured = new Captured();
+        return () -> {
+            Captured previous = captured.apply();
+            try {
+                task.run();
+            } finally {
+                previous.apply();
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Captured captured = new Captured();
+        return () -> {
+            Captured previous = captured.apply();
+            try {
+                return task.call();
+            } finally {
+                previous.apply();
+            }
+        };
+    }
+
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        Captured captured = new Captured();
+        return () -> {
+            Captured previous = captured.apply();
+            try {
+                return task.get();
+            } finally {
+                previous.apply();
+            }
+        };
+    }
+
+    public static Executor wrap(Executor executor) {
+        if (executor instanceof ExecutorService) {
+            return wrap((ExecutorService)executor);
+        }
+        return task -> executor.execute(wrap(task));
+    }
+
+    public static ExecutorService wrap(ExecutorService executorService) {
+        if (executorService instanceof ContextExecutorService) {
+            return executorService;
+        }
+        return new ContextExecutorService(executorService);
+    }
+
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        return CompletableFuture.supplyAsync(wrap(supplier), executor);
+    }
+
+    public static CompletableFuture<Void> runAsync(Runnable runnable, Executor executor) {
+        return CompletableFuture.runAsync(wrap(runnable), executor);
+    }
+
+    /**
+     * Context and MDC of a thread at a point in time
+     */
+    private static final class Captured {
+
+        private final RestResultContext.Snapshot snapshot;
+
+        private final Map<String, String> mdc;
+
+        Captured() {
+            this.snapshot = RestResultHolder.capture();
+            this.mdc = MDC.getCopyOfContextMap();
+        }
+
+        private Captured(RestResultContext.Snapshot snapshot, Map<String, String> mdc) {
+            this.snapshot = snapshot;
+            this.mdc = mdc;
+        }
+
+        /**
+         * Apply to the current thread
+         *
+         * @return what the current thread held before
+         */
+        Captured apply() {
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            RestResultContext.Snapshot previous = RestResultHolder.restore(snapshot);
+            if (mdc == null) {
+                MDC.clear();
+            } else {
+                MDC.setContextMap(mdc);
+            }
+            return new Captured(previous, previousMdc);
+        }
+
+    }
+
+    /**
+     * Executor service wrapping every submitted task
+     */
+    private static final class ContextExecutorService implements ExecutorService {
+
+        private final ExecutorService delegate;
+
+        ContextExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(wrap(command));
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> task) {
+            return delegate.submit(wrap(task));
+        }
+
+        @Override
+        public <T> Future<T> submit(Runnable task, T result) {
+            return delegate.submit(wrap(task), result);
+        }
+
+        @Override
+        public Future<?> submit(Runnable task) {
+            return delegate.submit(wrap(task));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+            return delegate.invokeAll(wrapAll(tasks));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return delegate.invokeAll(wrapAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+                throws InterruptedException, ExecutionException {
+            return delegate.invokeAny(wrapAll(tasks));
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            return delegate.invokeAny(wrapAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+
+        private static <T> List<Callable<T>> wrapAll(Collection<? extends Callable<T>> tasks) {
+            List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
+            for (Callable<T> task : tasks) {
+                wrapped.add(wrap(task));
+            }
+            return wrapped;
+        }
+
+    }
+
+    private RestResultContextPropagation() {}
+
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.context;
+
+/**
+ * Read-only view of the unified response context
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public interface RestResultContextView {
+
+    String getTraceId();
+
+    String getHost();
+
+    /**
+     * error display type： 0 silent; 1 message.warn; 2 message.error; 4 notification; 9 page
+     *
+     * @return error display type
+     */
+    int getErrorShowType();
+
+}
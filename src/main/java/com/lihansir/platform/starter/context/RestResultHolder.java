@@ -1,59 +1,134 @@
 package com.lihansir.platform.starter.context;
 
-import cn.hutool.core.util.StrUtil;
-
 /**
  * RestResultHolder
  *
+ * <p>The values are not inheritable, use {@link #capture()} and {@link #restore(RestResultContext.Snapshot)} to carry
+ * them over to another thread. How they are stored depends on the {@link RestResultContextMode}.</p>
+ *
  * @author <a href="https://www.lihansir.com">Li Han</a>
  */
 public class RestResultHolder {
 
-    private static final ThreadLocal<String> TRACE_ID = new InheritableThreadLocal<>();
+    private static final ThreadLocal<RestResultContext> CONTEXT = ThreadLocal.withInitial(RestResultContext::new);
+
+    private static final ThreadLocal<RestResultContext.Snapshot> SNAPSHOT = new ThreadLocal<>();
 
-    private static final ThreadLocal<String> HOST = new InheritableThreadLocal<>();
+    private static volatile boolean snapshotMode = false;
 
     /**
-     * error display type： 0 silent; 1 message.warn; 2 message.error; 4 notification; 9 page
+     * Select the storage mode, meant to be called once at startup before any request is served
+     *
+     * @param mode storage mode
      */
-    private static final ThreadLocal<Integer> ERROR_SHOW_TYPE = InheritableThreadLocal.withInitial(() -> 4);
+    public static void setMode(RestResultContextMode mode) {
+        snapshotMode = mode == RestResultContextMode.SNAPSHOT;
+    }
+
+    public static RestResultContextMode getMode() {
+        return snapshotMode ? RestResultContextMode.SNAPSHOT : RestResultContextMode.THREAD_LOCAL;
+    }
+
+    /**
+     * Set the host reported by the requests that set none, meant to be called once at startup
+     *
+     * @param host node host
+     */
+    public static void setDefaultHost(String host) {
+        RestResultContext.setDefaultHost(host);
+    }
+
+    /**
+     * Values of the current thread, read them through a single view when several are needed
+     *
+     * @return context view
+     */
+    public static RestResultContextView current() {
+        return snapshotMode ? currentSnapshot() : CONTEXT.get();
+    }
 
     public static void setTraceId(String traceId) {
-        TRACE_ID.set(traceId);
+        if (snapshotMode) {
+            SNAPSHOT.set(currentSnapshot().withTraceId(traceId));
+        } else {
+            CONTEXT.get().setTraceId(traceId);
+        }
     }
 
     public static void setHost(String host) {
-        HOST.set(host);
+        if (snapshotMode) {
+            SNAPSHOT.set(currentSnapshot().withHost(host));
+        } else {
+            CONTEXT.get().setHost(host);
+        }
     }
 
     public static void setErrorShowType(int showType) {
-        ERROR_SHOW_TYPE.set(showType);
+        if (snapshotMode) {
+            SNAPSHOT.set(currentSnapshot().withErrorShowType(showType));
+        } else {
+            CONTEXT.get().setErrorShowType(showType);
+        }
     }
 
     public static String getTraceId() {
-        String traceId = TRACE_ID.get();
-        if (traceId == null) {
-            traceId = StrUtil.EMPTY;
-        }
-        return traceId;
+        return current().getTraceId();
     }
 
     public static String getHost() {
-        String host = HOST.get();
-        if (host == null) {
-            host = StrUtil.EMPTY;
-        }
-        return host;
+        return current().getHost();
     }
 
     public static Integer getErrorShowType() {
-        return ERROR_SHOW_TYPE.get();
+        return current().getErrorShowType();
+    }
+
+    /**
+     * Capture the values of the current thread, free of copies in snapshot mode
+     *
+     * @return snapshot
+     */
+    public static RestResultContext.Snapshot capture() {
+        return snapshotMode ? currentSnapshot() : CONTEXT.get().capture();
+    }
+
+    /**
+     * Restore captured values on the current thread
+     *
+     * @param snapshot snapshot, null resets the context
+     * @return the values replaced, to be restored afterwards
+     */
+    public static RestResultContext.Snapshot restore(RestResultContext.Snapshot snapshot) {
+        if (snapshotMode) {
+            RestResultContext.Snapshot previous = SNAPSHOT.get();
+            if (snapshot == null || snapshot == RestResultContext.Snapshot.EMPTY) {
+                SNAPSHOT.remove();
+            } else {
+                SNAPSHOT.set(snapshot);
+            }
+            return previous;
+        }
+        RestResultContext context = CONTEXT.get();
+        RestResultContext.Snapshot previous = context.capture();
+        context.restore(snapshot);
+        return previous;
     }
 
+    /**
+     * Clear the values of the current thread. In thread local mode the context object is kept for the next request,
+     * in snapshot mode nothing is left behind on the thread
+     */
     public static void remove() {
-        TRACE_ID.remove();
-        HOST.remove();
-        ERROR_SHOW_TYPE.remove();
+        if (snapshotMode) {
+            SNAPSHOT.remove();
+        } else {
+            CONTEXT.get().reset();
+        }
+    }
+
+    private static RestResultContext.Snapshot currentSnapshot() {
+        RestResultContext.Snapshot snapshot = SNAPSHOT.get();
+        return snapshot == null ? RestResultContext.Snapshot.EMPTY : snapshot;
     }
 
     private RestResultHolder() {}
@@ -0,0 +1,22 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.context;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Task decorator propagating the unified response context, for {@code ThreadPoolTaskExecutor} and the executor boot
+ * auto-configures for {@code @Async}
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class RestResultTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return RestResultContextPropagation.wrap(runnable);
+    }
+
+}
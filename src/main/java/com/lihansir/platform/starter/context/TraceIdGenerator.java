@@ -0,0 +1,103 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.context;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lock-free trace id generator
+ *
+ * <p>Ids are 32 lowercase hex characters, the same shape as a W3C trace-id, drawn from {@link ThreadLocalRandom}
+ * instead of the shared {@code SecureRandom} behind {@code UUID.randomUUID()}.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class TraceIdGenerator {
+
+    /**
+     * W3C trace context header
+     */
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final int TRACE_ID_LENGTH = 32;
+
+    private static final int MAX_INCOMING_LENGTH = 64;
+
+    /**
+     * Generate a new trace id
+     *
+     * @return 32 hex characters
+     */
+    public static String generate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long high = random.nextLong();
+        long low = random.nextLong();
+        if (high == 0 && low == 0) {
+            low = 1;
+        }
+        char[] chars = new char[TRACE_ID_LENGTH];
+        fill(chars, 0, high);
+        fill(chars, 16, low);
+        return new String(chars);
+    }
+
+    /**
+     * Extract the trace-id of a W3C traceparent header
+     *
+     * @param traceparent header value, version-traceid-parentid-flags
+     * @return trace id, or null if the header is malformed
+     */
+    public static String fromTraceparent(String traceparent) {
+        if (traceparent == null || traceparent.length() < 55 || traceparent.charAt(2) != '-'
+                || traceparent.charAt(35) != '-') {
+            return null;
+        }
+        boolean zero = true;
+        for (int i = 3; i < 35; i++) {
+            char c = traceparent.charAt(i);
+            if (!isHex(c)) {
+                return null;
+            }
+            zero &= c == '0';
+        }
+        return zero ? null : traceparent.substring(3, 35);
+    }
+
+    /**
+     * Check an incoming trace id so that it can be echoed in responses and logs safely
+     *
+     * @param traceId incoming trace id
+     * @return true if it only holds letters, digits, '-' and '_' and is not too long
+     */
+    public static boolean isValid(String traceId) {
+        if (traceId == null || traceId.isEmpty() || traceId.length() > MAX_INCOMING_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '-'
+                    || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void fill(char[] chars, int offset, long value) {
+        for (int i = 15; i >= 0; i--) {
+            chars[offset + i] = HEX[(int)(value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+    }
+
+    private TraceIdGenerator() {}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.converter;
+
+import com.lihansir.platform.starter.context.RestResultContextView;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Successful unified response around data that is already encoded, the data is spliced into the
+ * {@link SuccessEnvelope} of the serializer in use
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public final class EncodedDataRestResult {
+
+    private final byte[] data;
+
+    private final int length;
+
+    private final RestResultContextView context;
+
+    public EncodedDataRestResult(byte[] data, RestResultContextView context) {
+        this(data, data.length, context);
+    }
+
+    /**
+     * Response around the first bytes of a buffer
+     *
+     * @param data    buffer holding the encoded data
+     * @param length  length of the encoded data
+     * @param context request context
+     */
+    public EncodedDataRestResult(byte[] data, int length, RestResultContextView context) {
+        this.data = data;
+        this.length = length;
+        this.context = context;
+    }
+
+    /**
+     * Write the response to the output stream
+     *
+     * @param out output stream
+     * @return number of bytes written
+     * @throws IOException in case of I/O errors
+     */
+    public long writeTo(OutputStream out) throws IOException {
+        return SuccessEnvelope.get().writeTo(data, length, context, out);
+    }
+
+}
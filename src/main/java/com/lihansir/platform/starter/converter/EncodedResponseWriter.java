@@ -0,0 +1,383 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.converter;
+
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import com.lihansir.platform.starter.context.RestResultContextView;
+import com.lihansir.platform.starter.serializer.RestResultSerializers;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the unified response around encoded data. The etag is taken over the data only, so the request scoped fields
+ * of the envelope do not change it, and a request whose If-None-Match holds it is answered with 304 before anything
+ * is written. Responses above the minimum size are gzip compressed for the clients accepting it, with deflaters
+ * taken from a pool. The data buffers come from a pool of the same size, a buffer grown above 64 KB is dropped
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class EncodedResponseWriter {
+
+    private static final String GZIP = "gzip";
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte)0xff};
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    /**
+     * Largest buffer returned to the pool, a larger one is left to the garbage collector
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    private static final int DEFLATE_BUFFER_SIZE = 8192;
+
+    private final boolean etag;
+
+    private final boolean compression;
+
+    private final long minCompressSize;
+
+    private final int level;
+
+    private final BlockingQueue<GzipState> deflaters;
+
+    private final BlockingQueue<DataBuffer> buffers;
+
+    public EncodedResponseWriter() {
+        this(new RestResultProperties.Etag(), new RestResultProperties.Compression());
+    }
+
+    /**
+     * Writer with the given etag and compression settings
+     *
+     * @param etag        etag properties
+     * @param compression compression properties
+     */
+    public EncodedResponseWriter(RestResultProperties.Etag etag, RestResultProperties.Compression compression) {
+        this.etag = etag.isEnabled();
+        this.compression = compression.isEnabled();
+        this.minCompressSize = compression.getMinSize().toBytes();
+        this.level = compression.getLevel();
+        this.deflaters = new ArrayBlockingQueue<>(Math.max(1, compression.getPoolSize()));
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, compression.getPoolSize()));
+    }
+
+    /**
+     * Whether the data of a response is to be encoded before it is written, to take its etag or its size
+     *
+     * @param request http request
+     * @param status  status of the response
+     * @return true when the etag or the compression applies to the response
+     */
+    public boolean isApplicable(ServerHttpRequest request, int status) {
+        if (status != HttpStatus.OK.value()) {
+            return false;
+        }
+        return etag && isReadMethod(request.getMethod()) || compression && acceptsGzip(request.getHeaders());
+    }
+
+    /**
+     * Encode the data and write the unified response around it
+     *
+     * @param body     data of the response
+     * @param request  http request
+     * @param response http response
+     * @param context  request context
+     * @return number of bytes written
+     * @throws IOException in case of I/O errors
+     */
+    public long write(Object body, ServerHttpRequest request, ServerHttpResponse response,
+                      RestResultContextView context) throws IOException {
+        DataBuffer pooled = buffers.poll();
+        DataBuffer buffer = pooled != null ? pooled : new DataBuffer();
+        buffer.reset(etag);
+        try {
+            RestResultSerializers.get().write(body, buffer);
+            return write(buffer.array, buffer.size, buffer.etag(), request, response, context);
+        } finally {
+            if (buffer.array.length <= MAX_POOLED_BUFFER_SIZE) {
+                buffers.offer(buffer);
+            }
+        }
+    }
+
+    /**
+     * Write the unified response around data that is already encoded
+     *
+     * @param data     encoded data
+     * @param request  http request
+     * @param response http response
+     * @param context  request context
+     * @return number of bytes written
+     * @throws IOException in case of I/O errors
+     */
+    public long write(byte[] data, ServerHttpRequest request, ServerHttpResponse response,
+                      RestResultContextView context) throws IOException {
+        String tag = etag ? etag(data, data.length) : null;
+        return write(data, data.length, tag, request, response, context);
+    }
+
+    private long write(byte[] data, int length, String tag, ServerHttpRequest request, ServerHttpResponse response,
+                       RestResultContextView context) throws IOException {
+        HttpHeaders headers = response.getHeaders();
+        if (compression) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (tag != null && isReadMethod(request.getMethod()) && headers.getETag() == null) {
+            headers.setETag(tag);
+            if (matches(request.getHeaders().get(HttpHeaders.IF_NONE_MATCH), tag)) {
+                response.setStatusCode(HttpStatus.NOT_MODIFIED);
+                response.flush();
+                return 0;
+            }
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        EncodedDataRestResult result = new EncodedDataRestResult(data, length, context);
+        if (!compression || length < minCompressSize || !acceptsGzip(request.getHeaders())) {
+            return result.writeTo(response.getBody());
+        }
+        headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+        GzipOutputStream out = new GzipOutputStream(response.getBody());
+        try {
+            result.writeTo(out);
+            out.finish();
+            return out.written;
+        } finally {
+            out.release();
+        }
+    }
+
+    private static boolean isReadMethod(HttpMethod method) {
+        return method == HttpMethod.GET || method == HttpMethod.HEAD;
+    }
+
+    /**
+     * Weak etag, the envelope around the data differs from one response to the next
+     */
+    private static String weakEtag(long crc, long adler) {
+        String hash = Long.toHexString(crc << 32 | adler);
+        StringBuilder tag = new StringBuilder(21).append("W/\"");
+        for (int i = hash.length(); i < 16; i++) {
+            tag.append('0');
+        }
+        return tag.append(hash).append('"').toString();
+    }
+
+    private static String etag(byte[] data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        Adler32 adler = new Adler32();
+        adler.update(data, 0, length);
+        return weakEtag(crc.getValue(), adler.getValue());
+    }
+
+    /**
+     * Weak comparison of the entity tags of If-None-Match with the etag
+     */
+    private static boolean matches(Iterable<String> ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = tag.substring(2);
+        for (String value : ifNoneMatch) {
+            for (String candidate : StringUtils.tokenizeToStringArray(value, ",")) {
+                if ("*".equals(candidate) || opaque.equals(candidate.startsWith("W/") ? candidate.substring(2)
+                        : candidate)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(HttpHeaders headers) {
+        for (String value : headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : StringUtils.tokenizeToStringArray(value, ",")) {
+                int semicolon = coding.indexOf(';');
+                String name = semicolon < 0 ? coding : coding.substring(0, semicolon).trim();
+                if (GZIP.equalsIgnoreCase(name)) {
+                    return semicolon < 0 || !isZeroQuality(coding.substring(semicolon + 1));
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String parameters) {
+        for (String parameter : StringUtils.tokenizeToStringArray(parameters, ";")) {
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) == 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Growable buffer of the encoded data, hashing the bytes as the serializer writes them
+     */
+    private static final class DataBuffer extends OutputStream {
+
+        private final CRC32 crc = new CRC32();
+
+        private final Adler32 adler = new Adler32();
+
+        private byte[] array = new byte[INITIAL_BUFFER_SIZE];
+
+        private int size;
+
+        private boolean hash;
+
+        void reset(boolean hash) {
+            this.size = 0;
+            this.hash = hash;
+            crc.reset();
+            adler.reset();
+        }
+
+        String etag() {
+            return hash ? weakEtag(crc.getValue(), adler.getValue()) : null;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(1);
+            array[size++] = (byte)b;
+            if (hash) {
+                crc.update(b);
+                adler.update(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(len);
+            System.arraycopy(b, off, array, size, len);
+            size += len;
+            if (hash) {
+                crc.update(b, off, len);
+                adler.update(b, off, len);
+            }
+        }
+
+        private void ensureCapacity(int len) {
+            if (size + len > array.length) {
+                array = Arrays.copyOf(array, Math.max(array.length << 1, size + len));
+            }
+        }
+
+    }
+
+    /**
+     * Deflater of a gzip stream with its output buffer and checksum, reused across responses
+     */
+    private static final class GzipState {
+
+        private final Deflater deflater;
+
+        private final byte[] buffer = new byte[DEFLATE_BUFFER_SIZE];
+
+        private final CRC32 crc = new CRC32();
+
+        GzipState(int level) {
+            this.deflater = new Deflater(level, true);
+        }
+
+    }
+
+    /**
+     * Gzip stream over a pooled deflater, the deflater goes back to the pool on release or is ended when the pool is
+     * full
+     */
+    private final class GzipOutputStream extends OutputStream {
+
+        private final OutputStream out;
+
+        private GzipState state;
+
+        private long written;
+
+        GzipOutputStream(OutputStream out) throws IOException {
+            this.out = out;
+            GzipState pooled = deflaters.poll();
+            this.state = pooled != null ? pooled : new GzipState(level);
+            out.write(GZIP_HEADER);
+            written = GZIP_HEADER.length;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte)b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            state.crc.update(b, off, len);
+            state.deflater.setInput(b, off, len);
+            while (!state.deflater.needsInput()) {
+                deflate();
+            }
+        }
+
+        void finish() throws IOException {
+            state.deflater.finish();
+            while (!state.deflater.finished()) {
+                deflate();
+            }
+            byte[] trailer = new byte[8];
+            writeInt(trailer, 0, (int)state.crc.getValue());
+            writeInt(trailer, 4, (int)state.deflater.getBytesRead());
+            out.write(trailer);
+            written += trailer.length;
+        }
+
+        void release() {
+            GzipState released = state;
+            state = null;
+            released.deflater.reset();
+            released.crc.reset();
+            if (!deflaters.offer(released)) {
+                released.deflater.end();
+            }
+        }
+
+        private void deflate() throws IOException {
+            int count = state.deflater.deflate(state.buffer, 0, state.buffer.length, Deflater.NO_FLUSH);
+            if (count > 0) {
+                out.write(state.buffer, 0, count);
+                written += count;
+            }
+        }
+
+        private void writeInt(byte[] bytes, int offset, int value) {
+            bytes[offset] = (byte)value;
+            bytes[offset + 1] = (byte)(value >> 8);
+            bytes[offset + 2] = (byte)(value >> 16);
+            bytes[offset + 3] = (byte)(value >> 24);
+        }
+
+    }
+
+}
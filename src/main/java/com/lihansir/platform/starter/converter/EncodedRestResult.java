@@ -0,0 +1,178 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.converter;
+
+import com.lihansir.platform.common.rest.RestResult;
+import com.lihansir.platform.starter.serializer.RestResultSerializer;
+import com.lihansir.platform.starter.serializer.RestResultSerializers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Failed unified response backed by a pre-encoded template, only the request scoped fields are spliced in
+ *
+ * <p>The template is cut out of what the serializer in use writes for the same response, so the output is the one of
+ * the serialized {@code RestResult}: same field names, order and inclusion, data included.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public final class EncodedRestResult {
+
+    private final Template template;
+
+    private final String detail;
+
+    private final String traceId;
+
+    private final String host;
+
+    private final Integer showType;
+
+    EncodedRestResult(Template template, String detail, String traceId, String host, Integer showType) {
+        this.template = template;
+        this.detail = detail;
+        this.traceId = traceId;
+        this.host = host;
+        this.showType = showType;
+    }
+
+    public String getErrorCode() {
+        return template.errorCode;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Encode the response into a single array of its exact size
+     *
+     * @return UTF-8 json
+     */
+    public byte[] toBytes() {
+        RestResultSerializer serializer = RestResultSerializers.get();
+        EnvelopeLayout layout = template.layout(serializer, traceId == null, host == null, showType == null);
+        return layout == null ? serializer.toBytes(toRestResult()) : layout.encode(values());
+    }
+
+    /**
+     * Write the response to the output stream
+     *
+     * @param out output stream
+     * @return number of bytes written
+     * @throws IOException in case of I/O errors
+     */
+    public int writeTo(OutputStream out) throws IOException {
+        byte[] bytes = toBytes();
+        out.write(bytes);
+        return bytes.length;
+    }
+
+    /**
+     * Same response as a plain unified response
+     *
+     * @return unified response
+     */
+    public RestResult<Object> toRestResult() {
+        return template.prototype(template.message(detail), traceId, host, showType);
+    }
+
+    private byte[][] values() {
+        byte[][] values = EnvelopeLayout.values(traceId, host, showType);
+        values[EnvelopeLayout.Slot.DETAIL.ordinal()] = EnvelopeLayout.escape(detail == null ? "" : detail);
+        return values;
+    }
+
+    /**
+     * Static part of a failed response, encoded once per serializer and per combination of null request fields
+     */
+    static final class Template {
+
+        private final String errorCode;
+
+        private final String errorMessage;
+
+        /**
+         * Static error message tail written after the request scoped detail, null for a message without detail
+         */
+        private final String messageSuffix;
+
+        private volatile Layouts layouts;
+
+        Template(String errorCode, String errorMessage, String messageSuffix) {
+            this.errorCode = errorCode;
+            this.errorMessage = errorMessage;
+            this.messageSuffix = messageSuffix;
+        }
+
+        /**
+         * Whether the template holds the given static message
+         */
+        boolean matches(String message) {
+            return messageSuffix == null && Objects.equals(errorMessage, message);
+        }
+
+        String message(String detail) {
+            if (messageSuffix == null) {
+                return errorMessage;
+            }
+            return (errorMessage == null ? "" : errorMessage) + (detail == null ? "" : detail) + messageSuffix;
+        }
+
+        /**
+         * Layout of the responses whose null request fields are the given ones, null when it can not be cut out
+         */
+        EnvelopeLayout layout(RestResultSerializer serializer, boolean nullTraceId, boolean nullHost,
+                              boolean nullShowType) {
+            Layouts current = layouts;
+            if (current == null || current.serializer != serializer) {
+                current = new Layouts(serializer);
+                layouts = current;
+            }
+            int index = (nullTraceId ? 1 : 0) | (nullHost ? 2 : 0) | (nullShowType ? 4 : 0);
+            Object layout = current.layouts.get(index);
+            if (layout == null) {
+                RestResult<Object> prototype = prototype(message(EnvelopeLayout.Slot.DETAIL.getMarker()),
+                        nullTraceId ? null : EnvelopeLayout.Slot.TRACE_ID.getMarker(),
+                        nullHost ? null : EnvelopeLayout.Slot.HOST.getMarker(),
+                        nullShowType ? null : EnvelopeLayout.SHOW_TYPE_MARKER);
+                EnvelopeLayout created = EnvelopeLayout.of(serializer, prototype);
+                layout = created == null ? Layouts.UNUSABLE : created;
+                current.layouts.set(index, layout);
+            }
+            return layout == Layouts.UNUSABLE ? null : (EnvelopeLayout)layout;
+        }
+
+        RestResult<Object> prototype(String message, String traceId, String host, Integer showType) {
+            RestResult<Object> result = RestResult.failedWithErrorMessage(errorCode, message);
+            result.setTraceId(traceId);
+            result.setHost(host);
+            result.setShowType(showType);
+            return result;
+        }
+
+    }
+
+    /**
+     * Layouts of a template for one serializer
+     */
+    private static final class Layouts {
+
+        private static final Object UNUSABLE = new Object();
+
+        private final RestResultSerializer serializer;
+
+        private final AtomicReferenceArray<Object> layouts = new AtomicReferenceArray<>(8);
+
+        Layouts(RestResultSerializer serializer) {
+            this.serializer = serializer;
+        }
+
+    }
+
+}
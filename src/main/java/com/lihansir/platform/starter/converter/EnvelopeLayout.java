@@ -0,0 +1,386 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.converter;
+
+import com.lihansir.platform.common.rest.RestResult;
+import com.lihansir.platform.starter.serializer.RestResultSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encoded unified response split around its request scoped values
+ *
+ * <p>The layout is cut out of what the serializer writes for a prototype response holding a marker in place of every
+ * request scoped value, so the field names, order and inclusion are the ones of the serialized responses. A prototype
+ * is serialized once per layout, a response only splices its values in.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+final class EnvelopeLayout {
+
+    /**
+     * Request scoped value of a response
+     */
+    enum Slot {
+
+        /**
+         * Text inside the error message
+         */
+        DETAIL("RrDetailSlot7c1e", false),
+
+        TRACE_ID("RrTraceIdSlot7c1e", false),
+
+        HOST("RrHostSlot7c1e", false),
+
+        SHOW_TYPE("1938475601", false),
+
+        /**
+         * Encoded data, the marker string is replaced along with its quotes
+         */
+        DATA("RrDataSlot7c1e", true);
+
+        private final String marker;
+
+        private final byte[] markerBytes;
+
+        Slot(String marker, boolean quoted) {
+            this.marker = marker;
+            this.markerBytes = (quoted ? '"' + marker + '"' : marker).getBytes(StandardCharsets.UTF_8);
+        }
+
+        String getMarker() {
+            return marker;
+        }
+
+    }
+
+    /**
+     * Show type of a prototype, an unlikely number
+     */
+    static final int SHOW_TYPE_MARKER = Integer.parseInt(Slot.SHOW_TYPE.marker);
+
+    private static final Slot[] SLOTS = Slot.values();
+
+    /**
+     * Encoded parts between the slots, one more than the slots
+     */
+    private final byte[][] chunks;
+
+    private final Slot[] slots;
+
+    private final int chunksLength;
+
+    private EnvelopeLayout(byte[][] chunks, Slot[] slots) {
+        this.chunks = chunks;
+        this.slots = slots;
+        int length = 0;
+        for (byte[] chunk : chunks) {
+            length += chunk.length;
+        }
+        this.chunksLength = length;
+    }
+
+    /**
+     * Cut the layout out of the serialized prototype
+     *
+     * @param serializer serializer of the responses
+     * @param prototype  response holding the markers of the slots to find
+     * @return layout, null when a marker is not found exactly once and the responses are to be serialized whole
+     */
+    static EnvelopeLayout of(RestResultSerializer serializer, RestResult<?> prototype) {
+        return of(serializer.toBytes(prototype), prototype);
+    }
+
+    /**
+     * Cut the layout out of an encoded prototype
+     *
+     * @param encoded   UTF-8 json of the prototype
+     * @param prototype response holding the markers of the slots to find
+     * @return layout, null when a marker is not found exactly once
+     */
+    static EnvelopeLayout of(byte[] encoded, RestResult<?> prototype) {
+        int[] positions = new int[SLOTS.length];
+        int count = 0;
+        for (Slot slot : SLOTS) {
+            if (!holds(prototype, slot)) {
+                positions[slot.ordinal()] = -1;
+                continue;
+            }
+            int position = indexOf(encoded, slot.markerBytes, 0);
+            if (position < 0 || indexOf(encoded, slot.markerBytes, position + 1) >= 0) {
+                return null;
+            }
+            positions[slot.ordinal()] = position;
+            count++;
+        }
+        Slot[] slots = new Slot[count];
+        int index = 0;
+        for (Slot slot : SLOTS) {
+            if (positions[slot.ordinal()] >= 0) {
+                slots[index++] = slot;
+            }
+        }
+        Arrays.sort(slots, (first, second) -> Integer.compare(positions[first.ordinal()],
+                positions[second.ordinal()]));
+        byte[][] chunks = new byte[count + 1][];
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int position = positions[slots[i].ordinal()];
+            chunks[i] = Arrays.copyOfRange(encoded, start, position);
+            start = position + slots[i].markerBytes.length;
+        }
+        chunks[count] = Arrays.copyOfRange(encoded, start, encoded.length);
+        return new EnvelopeLayout(chunks, slots);
+    }
+
+    /**
+     * Encode a response into a single array of its exact size
+     *
+     * @param values encoded values by slot ordinal, the ones of the slots the layout has are required
+     * @return UTF-8 json
+     */
+    byte[] encode(byte[][] values) {
+        int length = chunksLength;
+        for (Slot slot : slots) {
+            length += values[slot.ordinal()].length;
+        }
+        byte[] buffer = new byte[length];
+        int pos = 0;
+        for (int i = 0; i < slots.length; i++) {
+            pos = put(buffer, pos, chunks[i]);
+            pos = put(buffer, pos, values[slots[i].ordinal()]);
+        }
+        put(buffer, pos, chunks[slots.length]);
+        return buffer;
+    }
+
+    /**
+     * Encode the part of a response before a slot
+     *
+     * @param slot   slot the layout has
+     * @param values encoded values by slot ordinal
+     * @return UTF-8 json
+     */
+    byte[] encodeBefore(Slot slot, byte[][] values) {
+        return encode(0, indexOf(slot), values);
+    }
+
+    /**
+     * Encode the part of a response after a slot
+     *
+     * @param slot   slot the layout has
+     * @param values encoded values by slot ordinal
+     * @return UTF-8 json
+     */
+    byte[] encodeAfter(Slot slot, byte[][] values) {
+        return encode(indexOf(slot) + 1, slots.length, values);
+    }
+
+    /**
+     * Write a response to the output stream
+     *
+     * @param values encoded values by slot ordinal
+     * @param out    output stream
+     * @return number of bytes written
+     * @throws IOException in case of I/O errors
+     */
+    long writeTo(byte[][] values, OutputStream out) throws IOException {
+        return writeTo(values, null, 0, out);
+    }
+
+    /**
+     * Write a response to the output stream, the data slot taken from the first bytes of a buffer
+     *
+     * @param values     encoded values by slot ordinal, the data one excepted
+     * @param data       buffer holding the encoded data
+     * @param dataLength length of the encoded data
+     * @param out        output stream
+     * @return number of bytes written
+     * @throws IOException in case of I/O errors
+     */
+    long writeTo(byte[][] values, byte[] data, int dataLength, OutputStream out) throws IOException {
+        long written = chunksLength;
+        for (int i = 0; i < slots.length; i++) {
+            out.write(chunks[i]);
+            if (slots[i] == Slot.DATA) {
+                out.write(data, 0, dataLength);
+                written += dataLength;
+            } else {
+                byte[] value = values[slots[i].ordinal()];
+                out.write(value);
+                written += value.length;
+            }
+        }
+        out.write(chunks[slots.length]);
+        return written;
+    }
+
+    /**
+     * Whether the layout has a slot
+     */
+    boolean has(Slot slot) {
+        for (Slot candidate : slots) {
+            if (candidate == slot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Encoded values of the request scoped fields, null fields left out
+     *
+     * @param traceId  trace id
+     * @param host     host
+     * @param showType error display type
+     * @return encoded values by slot ordinal
+     */
+    static byte[][] values(String traceId, String host, Integer showType) {
+        byte[][] values = new byte[SLOTS.length][];
+        if (traceId != null) {
+            values[Slot.TRACE_ID.ordinal()] = escape(traceId);
+        }
+        if (host != null) {
+            values[Slot.HOST.ordinal()] = escape(host);
+        }
+        if (showType != null) {
+            values[Slot.SHOW_TYPE.ordinal()] = escape(showType.toString());
+        }
+        return values;
+    }
+
+    /**
+     * Encode a string value, escaped for use inside a json string without the surrounding quotes
+     *
+     * @param value string value
+     * @return UTF-8 bytes
+     */
+    static byte[] escape(String value) {
+        return (isPlainAscii(value) ? value : escapeString(value)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean holds(RestResult<?> prototype, Slot slot) {
+        switch (slot) {
+            case DETAIL:
+                return prototype.getErrorMessage() != null && prototype.getErrorMessage().contains(slot.marker);
+            case TRACE_ID:
+                return slot.marker.equals(prototype.getTraceId());
+            case HOST:
+                return slot.marker.equals(prototype.getHost());
+            case DATA:
+                return slot.marker.equals(prototype.getData());
+            default:
+                return prototype.getShowType() != null && prototype.getShowType() == SHOW_TYPE_MARKER;
+        }
+    }
+
+    /**
+     * Encode the chunks from the first index to the last one, with the values of the slots between them
+     */
+    private byte[] encode(int first, int last, byte[][] values) {
+        int length = 0;
+        for (int i = first; i <= last; i++) {
+            length += chunks[i].length + (i < last ? values[slots[i].ordinal()].length : 0);
+        }
+        byte[] buffer = new byte[length];
+        int pos = 0;
+        for (int i = first; i < last; i++) {
+            pos = put(buffer, pos, chunks[i]);
+            pos = put(buffer, pos, values[slots[i].ordinal()]);
+        }
+        put(buffer, pos, chunks[last]);
+        return buffer;
+    }
+
+    private int indexOf(Slot slot) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == slot) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No " + slot + " slot in the layout");
+    }
+
+    private static int indexOf(byte[] bytes, byte[] marker, int from) {
+        outer:
+        for (int i = from; i <= bytes.length - marker.length; i++) {
+            for (int j = 0; j < marker.length; j++) {
+                if (bytes[i + j] != marker[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static int put(byte[] buffer, int pos, byte[] bytes) {
+        System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+        return pos + bytes.length;
+    }
+
+    private static String escapeString(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\b':
+                    builder.append("\\b");
+                    break;
+                case '\f':
+                    builder.append("\\f");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || (c >= 0x7F && c <= 0x9F) || c == 0x2028 || c == 0x2029
+                        || Character.isSurrogate(c) && !isPaired(value, i)) {
+                        builder.append(String.format("\\u%04X", (int)c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Whether the surrogate at the index belongs to a pair, a lone one can not be encoded as UTF-8
+     */
+    private static boolean isPaired(String value, int index) {
+        char c = value.charAt(index);
+        if (Character.isHighSurrogate(c)) {
+            return index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1));
+        }
+        return index > 0 && Character.isHighSurrogate(value.charAt(index - 1));
+    }
+
+    private static boolean isPlainAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c >= 0x7F || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.converter;
+
+import com.lihansir.platform.common.code.CommonCode;
+import com.lihansir.platform.common.code.RestCode;
+import com.lihansir.platform.common.rest.RestResult;
+import com.lihansir.platform.starter.context.RestResultContextView;
+import com.lihansir.platform.starter.context.RestResultHolder;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pre-encoded failed responses
+ *
+ * <p>Templates are only cached for static messages, the ones of a {@link RestCode} and the ones registered at
+ * startup. A message built per request, with an id or the text of an exception, is encoded for that request only and
+ * never enters the cache. A template is encoded by the serializer in use the first time it is written, and again when
+ * the serializer is replaced.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class ErrorResponseTemplates {
+
+    private static final int MAX_TEMPLATES = 1024;
+
+    private static final String NOT_FOUND_PREFIX = CommonCode.ERROR_URL.getErrorMessage() + "，request path:【";
+
+    private static final String NOT_FOUND_SUFFIX = "】";
+
+    /**
+     * Templates of the static messages keyed by error code
+     */
+    private static final ConcurrentMap<String, EncodedRestResult.Template[]> TEMPLATES = new ConcurrentHashMap<>(64);
+
+    private static final EncodedRestResult.Template NOT_FOUND = new EncodedRestResult.Template(
+            CommonCode.ERROR_URL.getErrorCode(), NOT_FOUND_PREFIX, NOT_FOUND_SUFFIX);
+
+    static {
+        register(CommonCode.ERROR_URL);
+        register(CommonCode.PARAM_CHECK_ERROR);
+        register(CommonCode.SERVLET_ERROR);
+        register(CommonCode.ILLEGAL_ARGUMENT_ERROR);
+        register(CommonCode.PROGRAM_EXECUTION_EXCEPTION);
+    }
+
+    /**
+     * Cache the template of a rest code
+     *
+     * @param code rest code
+     */
+    public static void register(RestCode code) {
+        register(code.getErrorCode(), code.getErrorMessage());
+    }
+
+    /**
+     * Cache the template of a static message, such as a configured one. Ignored once the cache is full
+     *
+     * @param errorCode    error code
+     * @param errorMessage static error message
+     */
+    public static void register(String errorCode, String errorMessage) {
+        if (errorCode == null || find(errorCode, errorMessage) != null || size() >= MAX_TEMPLATES) {
+            return;
+        }
+        EncodedRestResult.Template template = new EncodedRestResult.Template(errorCode, errorMessage, null);
+        TEMPLATES.merge(errorCode, new EncodedRestResult.Template[]{template}, (templates, added) -> {
+            for (EncodedRestResult.Template existing : templates) {
+                if (existing.matches(errorMessage)) {
+                    return templates;
+                }
+            }
+            EncodedRestResult.Template[] merged = Arrays.copyOf(templates, templates.length + 1);
+            merged[templates.length] = template;
+            return merged;
+        });
+    }
+
+    /**
+     * Pre-encoded form of a failed unified response without data, its own request fields included
+     *
+     * @param result unified response
+     * @return pre-encoded response, null when the response is not a failed one without data
+     */
+    public static EncodedRestResult encode(RestResult<?> result) {
+        if (result.getErrorCode() == null || result.getData() != null) {
+            return null;
+        }
+        return new EncodedRestResult(template(result.getErrorCode(), result.getErrorMessage()), null,
+                result.getTraceId(), result.getHost(), result.getShowType());
+    }
+
+    /**
+     * Failed response of the current request
+     *
+     * @param code rest code
+     * @return pre-encoded response
+     */
+    public static EncodedRestResult failed(RestCode code) {
+        return failed(code, RestResultHolder.current());
+    }
+
+    /**
+     * Failed response for the given context
+     *
+     * @param code    rest code
+     * @param context request context
+     * @return pre-encoded response
+     */
+    public static EncodedRestResult failed(RestCode code, RestResultContextView context) {
+        register(code);
+        return failed(code.getErrorCode(), code.getErrorMessage(), context);
+    }
+
+    /**
+     * Failed response of the current request
+     *
+     * @param errorCode    error code
+     * @param errorMessage error message
+     * @return pre-encoded response
+     */
+    public static EncodedRestResult failed(String errorCode, String errorMessage) {
+        return failed(errorCode, errorMessage, RestResultHolder.current());
+    }
+
+    /**
+     * Failed response for the given context
+     *
+     * @param errorCode    error code
+     * @param errorMessage error message
+     * @param context      request context
+     * @return pre-encoded response
+     */
+    public static EncodedRestResult failed(String errorCode, String errorMessage, RestResultContextView context) {
+        return of(template(errorCode, errorMessage), null, context);
+    }
+
+    /**
+     * Failed response for the given context with its own error display type
+     *
+     * @param errorCode     error code
+     * @param errorMessage  error message
+     * @param errorShowType error display type, the one of the context when null
+     * @param context       request context
+     * @return pre-encoded response
+     */
+    public static EncodedRestResult failed(String errorCode, String errorMessage, Integer errorShowType,
+                                           RestResultContextView context) {
+        return new EncodedRestResult(template(errorCode, errorMessage), null, context.getTraceId(), context.getHost(),
+                errorShowType == null ? context.getErrorShowType() : errorShowType);
+    }
+
+    /**
+     * Request path not found response of the current request
+     *
+     * @param requestPath request path
+     * @return pre-encoded response
+     */
+    public static EncodedRestResult notFound(String requestPath) {
+        return notFound(requestPath, RestResultHolder.current());
+    }
+
+    /**
+     * Request path not found response for the given context
+     *
+     * @param requestPath request path
+     * @param context     request context
+     * @return pre-encoded response
+     */
+    public static EncodedRestResult notFound(String requestPath, RestResultContextView context) {
+        return of(NOT_FOUND, requestPath, context);
+    }
+
+    /**
+     * Error message of the not found response
+     *
+     * @param requestPath normalized request path, null to leave it out
+     * @return error message
+     */
+    public static String notFoundMessage(String requestPath) {
+        return requestPath == null ? CommonCode.ERROR_URL.getErrorMessage()
+                : NOT_FOUND_PREFIX + requestPath + NOT_FOUND_SUFFIX;
+    }
+
+    /**
+     * Number of cached templates
+     *
+     * @return template count
+     */
+    public static int size() {
+        int size = 0;
+        for (EncodedRestResult.Template[] templates : TEMPLATES.values()) {
+            size += templates.length;
+        }
+        return size;
+    }
+
+    private static EncodedRestResult of(EncodedRestResult.Template template, String detail,
+                                        RestResultContextView context) {
+        return new EncodedRestResult(template, detail, context.getTraceId(), context.getHost(),
+                context.getErrorShowType());
+    }
+
+    /**
+     * Cached template of a static message, or a template encoded for this response only
+     */
+    private static EncodedRestResult.Template template(String errorCode, String errorMessage) {
+        EncodedRestResult.Template template = errorCode == null ? null : find(errorCode, errorMessage);
+        return template != null ? template : new EncodedRestResult.Template(errorCode, errorMessage, null);
+    }
+
+    private static EncodedRestResult.Template find(String errorCode, String errorMessage) {
+        EncodedRestResult.Template[] templates = TEMPLATES.get(errorCode);
+        if (templates != null) {
+            for (EncodedRestResult.Template template : templates) {
+                if (template.matches(errorMessage)) {
+                    return template;
+                }
+            }
+        }
+        return null;
+    }
+
+    private ErrorResponseTemplates() {}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.converter;
+
+import com.lihansir.platform.common.rest.RestResult;
+import com.lihansir.platform.starter.metrics.RestResultMetrics;
+import com.lihansir.platform.starter.serializer.RestResultSerializers;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unified response converter, writes the envelope and its data straight into the response stream in one pass
+ *
+ * <p>The envelope is encoded by the configured {@code RestResultSerializer}, which writes UTF-8 bytes directly, so no
+ * intermediate json string is built.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class RestResultHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    /**
+     * Request attribute holding the {@link WrapStart} of a wrapped response left to this converter, whose wrap time is
+     * recorded once it is written so that it includes the serialization
+     */
+    public static final String WRAP_START_ATTRIBUTE = RestResultHttpMessageConverter.class.getName() + ".wrapStart";
+
+    private final RestResultMetrics metrics;
+
+    public RestResultHttpMessageConverter() {
+        this(RestResultMetrics.NONE);
+    }
+
+    public RestResultHttpMessageConverter(RestResultMetrics metrics) {
+        super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.metrics = metrics;
+    }
+
+    /**
+     * Write a unified response to the output stream as UTF-8 json, a failed response without data is written from
+     * its pre-encoded template
+     *
+     * @param envelope unified response
+     * @param out      output stream
+     * @return number of bytes written
+     * @throws IOException in case of I/O errors
+     */
+    public static long writeEnvelope(Object envelope, OutputStream out) throws IOException {
+        if (envelope instanceof EncodedRestResult) {
+            return ((EncodedRestResult)envelope).writeTo(out);
+        }
+        if (envelope instanceof StreamingRestResult) {
+            return ((StreamingRestResult)envelope).writeTo(out);
+        }
+        if (envelope instanceof EncodedDataRestResult) {
+            return ((EncodedDataRestResult)envelope).writeTo(out);
+        }
+        if (envelope != null && envelope.getClass() == RestResult.class) {
+            EncodedRestResult encoded = ErrorResponseTemplates.encode((RestResult<?>)envelope);
+            if (encoded != null) {
+                return encoded.writeTo(out);
+            }
+        }
+        return RestResultSerializers.get().write(envelope, out);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RestResult.class.isAssignableFrom(clazz) || EncodedRestResult.class == clazz
+                || StreamingRestResult.class == clazz || EncodedDataRestResult.class == clazz;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Unified response can not be read", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object envelope, HttpOutputMessage outputMessage) throws IOException {
+        metrics.recordPayload(writeEnvelope(envelope, outputMessage.getBody()));
+        if (metrics == RestResultMetrics.NONE) {
+            return;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object wrapStart = attributes == null ? null
+                : attributes.getAttribute(WRAP_START_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (wrapStart instanceof WrapStart) {
+            attributes.removeAttribute(WRAP_START_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            metrics.recordWrap(((WrapStart)wrapStart).handler, System.nanoTime() - ((WrapStart)wrapStart).nanos);
+        }
+    }
+
+    /**
+     * Handler and start time of the wrapping of a response
+     */
+    public static final class WrapStart {
+
+        private final Method handler;
+
+        private final long nanos;
+
+        public WrapStart(Method handler, long nanos) {
+            this.handler = handler;
+            this.nanos = nanos;
+        }
+
+    }
+
+}
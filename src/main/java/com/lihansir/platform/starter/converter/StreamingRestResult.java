@@ -0,0 +1,140 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.converter;
+
+import com.lihansir.platform.starter.context.RestResultContextView;
+import com.lihansir.platform.starter.serializer.RestResultSerializer;
+import com.lihansir.platform.starter.serializer.RestResultSerializers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.BaseStream;
+
+/**
+ * Successful unified response whose data array is serialized element by element while it is written
+ *
+ * <p>The envelope is the {@link SuccessEnvelope} of the serializer in use. A failure once the response is committed is
+ * reported by the fields following the data array when the fields preceding it are the same for a failed response,
+ * otherwise the exception is rethrown and the response aborted, so that a client never reads a truncated data array as
+ * a success. The source is closed when writing ends, which releases cursors held by a
+ * {@link java.util.stream.Stream}.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public final class StreamingRestResult {
+
+    /**
+     * Default number of elements written between two flushes
+     */
+    public static final int DEFAULT_FLUSH_SIZE = 512;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamingRestResult.class);
+
+    private final Iterator<?> iterator;
+
+    private final AutoCloseable source;
+
+    private final RestResultContextView context;
+
+    private final int flushSize;
+
+    private StreamingRestResult(Iterator<?> iterator, AutoCloseable source, RestResultContextView context,
+                                int flushSize) {
+        this.iterator = iterator;
+        this.source = source;
+        this.context = context;
+        this.flushSize = Math.max(flushSize, 1);
+    }
+
+    /**
+     * Whether a body is written as a streaming response
+     *
+     * @param body response body
+     * @return true for streams and iterators
+     */
+    public static boolean isStreaming(Object body) {
+        return body instanceof BaseStream || body instanceof Iterator;
+    }
+
+    /**
+     * Streaming response of a stream or iterator body
+     *
+     * @param body      stream or iterator
+     * @param context   request context
+     * @param flushSize number of elements written between two flushes
+     * @return streaming response
+     */
+    public static StreamingRestResult of(Object body, RestResultContextView context, int flushSize) {
+        if (body instanceof BaseStream) {
+            BaseStream<?, ?> stream = (BaseStream<?, ?>)body;
+            return new StreamingRestResult(stream.iterator(), stream, context, flushSize);
+        }
+        if (body instanceof Iterator) {
+            Iterator<?> iterator = (Iterator<?>)body;
+            return new StreamingRestResult(iterator,
+                    iterator instanceof AutoCloseable ? (AutoCloseable)iterator : null, context, flushSize);
+        }
+        throw new IllegalArgumentException("Not a streaming body: " + body.getClass().getName());
+    }
+
+    /**
+     * Write the response, flushing the output stream every flush size elements
+     *
+     * @param out output stream
+     * @return number of bytes written
+     * @throws IOException in case of I/O errors
+     */
+    public long writeTo(OutputStream out) throws IOException {
+        long count = 0;
+        byte[] trailer;
+        RestResultSerializer serializer = RestResultSerializers.get();
+        SuccessEnvelope envelope = SuccessEnvelope.get();
+        byte[] header = envelope.header(context);
+        long written = header.length;
+        out.write(header);
+        try {
+            while (iterator.hasNext()) {
+                Object element = iterator.next();
+                if (count > 0) {
+                    out.write(',');
+                    written++;
+                }
+                written += serializer.write(element, out);
+                if (++count % flushSize == 0) {
+                    out.flush();
+                }
+            }
+            trailer = envelope.trailer(context);
+        } catch (IOException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            LOGGER.error("Streaming response failed after {} elements, TraceId：【{}】", count, context.getTraceId(), e);
+            trailer = envelope.failedTrailer(context);
+            if (trailer == null) {
+                throw e;
+            }
+        } finally {
+            close();
+        }
+        out.write(trailer);
+        out.flush();
+        return written + trailer.length;
+    }
+
+    private void close() {
+        if (source == null) {
+            return;
+        }
+        try {
+            source.close();
+        } catch (Exception e) {
+            LOGGER.warn("Failed to close the source of a streaming response", e);
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.converter;
+
+import com.lihansir.platform.common.code.CommonCode;
+import com.lihansir.platform.common.rest.RestResult;
+import com.lihansir.platform.starter.context.RestResultContextView;
+import com.lihansir.platform.starter.serializer.RestResultSerializer;
+import com.lihansir.platform.starter.serializer.RestResultSerializers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Successful unified response split around its data, for data that is already encoded or encoded while it is written
+ *
+ * <p>The envelope is cut out of what the json encoder writes for a prototype response, so the fields, their names,
+ * order and inclusion are the ones of a serialized {@code RestResult}. Layouts are built once per combination of null
+ * request fields.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public final class SuccessEnvelope {
+
+    private static volatile SuccessEnvelope current;
+
+    private static final byte[] ARRAY_START = {'['};
+
+    private static final byte[] ARRAY_END = {']'};
+
+    /**
+     * Owner of the encoder, the serializer in use for the servlet envelopes
+     */
+    private final Object owner;
+
+    private final Function<Object, byte[]> encoder;
+
+    private final AtomicReferenceArray<EnvelopeLayout> succeeded = new AtomicReferenceArray<>(4);
+
+    private final AtomicReferenceArray<EnvelopeLayout> failed = new AtomicReferenceArray<>(4);
+
+    /**
+     * Envelope encoded by the given json encoder
+     *
+     * @param encoder json encoder of the responses
+     */
+    public SuccessEnvelope(Function<Object, byte[]> encoder) {
+        this(encoder, encoder);
+    }
+
+    private SuccessEnvelope(Object owner, Function<Object, byte[]> encoder) {
+        this.owner = owner;
+        this.encoder = encoder;
+    }
+
+    /**
+     * Envelope of the serializer in use
+     *
+     * @return envelope
+     */
+    public static SuccessEnvelope get() {
+        RestResultSerializer serializer = RestResultSerializers.get();
+        SuccessEnvelope envelope = current;
+        if (envelope == null || envelope.owner != serializer) {
+            envelope = new SuccessEnvelope(serializer, serializer::toBytes);
+            current = envelope;
+        }
+        return envelope;
+    }
+
+    /**
+     * Write a response around the first bytes of a buffer
+     *
+     * @param data       buffer holding the encoded data
+     * @param dataLength length of the encoded data
+     * @param context    request context
+     * @param out        output stream
+     * @return number of bytes written
+     * @throws IOException in case of I/O errors
+     */
+    public long writeTo(byte[] data, int dataLength, RestResultContextView context, OutputStream out)
+            throws IOException {
+        return layout(succeeded, context).writeTo(values(context), data, dataLength, out);
+    }
+
+    /**
+     * Part of a response up to the opening of its data array
+     *
+     * @param context request context
+     * @return UTF-8 json
+     */
+    public byte[] header(RestResultContextView context) {
+        return concat(layout(succeeded, context).encodeBefore(EnvelopeLayout.Slot.DATA, values(context)),
+                ARRAY_START);
+    }
+
+    /**
+     * Part of a response from the closing of its data array
+     *
+     * @param context request context
+     * @return UTF-8 json
+     */
+    public byte[] trailer(RestResultContextView context) {
+        return concat(ARRAY_END,
+                layout(succeeded, context).encodeAfter(EnvelopeLayout.Slot.DATA, values(context)));
+    }
+
+    /**
+     * Part of a failed response from the closing of its data array, reporting a failure once the header is written
+     *
+     * @param context request context
+     * @return UTF-8 json, null when the fields written before the data differ between a successful and a failed
+     * response and the failure can not be reported anymore
+     */
+    public byte[] failedTrailer(RestResultContextView context) {
+        byte[][] values = values(context);
+        EnvelopeLayout layout = layout(failed, context);
+        byte[] header = layout(succeeded, context).encodeBefore(EnvelopeLayout.Slot.DATA, values);
+        if (!Arrays.equals(header, layout.encodeBefore(EnvelopeLayout.Slot.DATA, values))) {
+            return null;
+        }
+        return concat(ARRAY_END, layout.encodeAfter(EnvelopeLayout.Slot.DATA, values));
+    }
+
+    /**
+     * Successful response of the given data, the one the non-encoded path serializes
+     *
+     * @param data    response data
+     * @param context request context
+     * @return unified response
+     */
+    public static RestResult<Object> succeeded(Object data, RestResultContextView context) {
+        return fill(RestResult.builder().success(true).data(data).build(), context.getTraceId(), context.getHost(),
+                context.getErrorShowType());
+    }
+
+    private EnvelopeLayout layout(AtomicReferenceArray<EnvelopeLayout> layouts, RestResultContextView context) {
+        boolean nullTraceId = context.getTraceId() == null;
+        boolean nullHost = context.getHost() == null;
+        int index = (nullTraceId ? 1 : 0) | (nullHost ? 2 : 0);
+        EnvelopeLayout layout = layouts.get(index);
+        if (layout == null) {
+            String data = EnvelopeLayout.Slot.DATA.getMarker();
+            RestResult<Object> prototype = layouts == succeeded ? RestResult.builder().success(true).data(data).build()
+                    : RestResult.failed(CommonCode.PROGRAM_EXECUTION_EXCEPTION.getErrorCode(),
+                    CommonCode.PROGRAM_EXECUTION_EXCEPTION.getErrorMessage(), data);
+            fill(prototype, nullTraceId ? null : EnvelopeLayout.Slot.TRACE_ID.getMarker(),
+                    nullHost ? null : EnvelopeLayout.Slot.HOST.getMarker(), EnvelopeLayout.SHOW_TYPE_MARKER);
+            layout = EnvelopeLayout.of(encoder.apply(prototype), prototype);
+            if (layout == null || !layout.has(EnvelopeLayout.Slot.DATA)) {
+                throw new IllegalStateException("Unified response envelope can not be cut out of the json encoder");
+            }
+            layouts.set(index, layout);
+        }
+        return layout;
+    }
+
+    private static byte[][] values(RestResultContextView context) {
+        return EnvelopeLayout.values(context.getTraceId(), context.getHost(), context.getErrorShowType());
+    }
+
+    private static RestResult<Object> fill(RestResult<Object> result, String traceId, String host, Integer showType) {
+        result.setTraceId(traceId);
+        result.setHost(host);
+        result.setShowType(showType);
+        return result;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] bytes = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.filter;
+
+import com.lihansir.platform.starter.context.RestResultHolder;
+import com.lihansir.platform.starter.context.TraceIdGenerator;
+import org.slf4j.MDC;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Trace id filter, reads the incoming trace id or generates one and exposes it to the unified response and the logs
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class TraceIdFilter extends OncePerRequestFilter {
+
+    /**
+     * Request attribute keeping the trace id for the error dispatch of the same request
+     */
+    public static final String TRACE_ID_ATTRIBUTE = TraceIdFilter.class.getName() + ".TRACE_ID";
+
+    private final String headerName;
+
+    private final String mdcKey;
+
+    private final boolean responseHeader;
+
+    public TraceIdFilter(String headerName, String mdcKey, boolean responseHeader) {
+        this.headerName = headerName;
+        this.mdcKey = mdcKey;
+        this.responseHeader = responseHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String traceId = (String)request.getAttribute(TRACE_ID_ATTRIBUTE);
+        if (traceId == null) {
+            traceId = resolveTraceId(request);
+            request.setAttribute(TRACE_ID_ATTRIBUTE, traceId);
+        }
+        RestResultHolder.setTraceId(traceId);
+        MDC.put(mdcKey, traceId);
+        if (responseHeader) {
+            response.setHeader(headerName, traceId);
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(mdcKey);
+            RestResultHolder.remove();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+
+    private String resolveTraceId(HttpServletRequest request) {
+        String traceId = TraceIdGenerator.fromTraceparent(request.getHeader(TraceIdGenerator.TRACEPARENT_HEADER));
+        if (traceId != null) {
+            return traceId;
+        }
+        traceId = request.getHeader(headerName);
+        if (TraceIdGenerator.isValid(traceId)) {
+            return traceId;
+        }
+        return TraceIdGenerator.generate();
+    }
+
+}
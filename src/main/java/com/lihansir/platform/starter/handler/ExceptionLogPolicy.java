@@ -0,0 +1,90 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.handler;
+
+import org.springframework.boot.logging.LogLevel;
+
+/**
+ * Logging policy of a handled exception type
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class ExceptionLogPolicy {
+
+    /**
+     * Log level, OFF disables logging of the exception type
+     */
+    private LogLevel level = LogLevel.ERROR;
+
+    /**
+     * Whether the stack trace is logged
+     */
+    private boolean stackTrace = true;
+
+    /**
+     * Log one of every N occurrences per error code, 1 logs every occurrence
+     */
+    private int sampleRate = 1;
+
+    /**
+     * Logged occurrences per second per error code, 0 means unlimited
+     */
+    private double permitsPerSecond = 0;
+
+    /**
+     * Occurrences that may be logged at once before the rate limit applies
+     */
+    private int burst = 10;
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    public void setLevel(LogLevel level) {
+        this.level = level;
+    }
+
+    public boolean isStackTrace() {
+        return stackTrace;
+    }
+
+    public void setStackTrace(boolean stackTrace) {
+        this.stackTrace = stackTrace;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public void setPermitsPerSecond(double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    /**
+     * Whether occurrences may be suppressed by this policy
+     *
+     * @return true if sampled or rate limited
+     */
+    public boolean isLimited() {
+        return sampleRate > 1 || permitsPerSecond > 0;
+    }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.handler;
+
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.ClassUtils;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exception logger applying the configured level, sampling and rate limiting per exception type and error code
+ *
+ * <p>Occurrences that are sampled out or rate limited are counted and reported in a periodic summary line, so an
+ * error storm costs a constant amount of logging.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class ExceptionLogger implements DisposableBean {
+
+    private static final String OTHER_ERROR_CODES = "other";
+
+    private final Logger logger;
+
+    private final ExceptionLogPolicy defaultPolicy;
+
+    private final Map<Class<?>, ExceptionLogPolicy> policies = new LinkedHashMap<>();
+
+    private final ConcurrentMap<Class<?>, ExceptionLogPolicy> resolvedPolicies = new ConcurrentHashMap<>(64);
+
+    private final ConcurrentMap<String, ErrorCodeState> states = new ConcurrentHashMap<>(64);
+
+    private final int maxErrorCodes;
+
+    private final ScheduledExecutorService summaryExecutor;
+
+    public ExceptionLogger(Logger logger, RestResultProperties.ExceptionLog properties) {
+        this.logger = logger;
+        this.defaultPolicy = properties.getDefaultPolicy();
+        this.maxErrorCodes = properties.getMaxErrorCodes();
+        boolean limited = defaultPolicy.isLimited();
+        ClassLoader classLoader = ExceptionLogger.class.getClassLoader();
+        for (Map.Entry<String, ExceptionLogPolicy> entry : properties.getPolicies().entrySet()) {
+            if (!ClassUtils.isPresent(entry.getKey(), classLoader)) {
+                logger.warn("Exception log policy ignored, exception type not found：【{}】", entry.getKey());
+                continue;
+            }
+            policies.put(ClassUtils.resolveClassName(entry.getKey(), classLoader), entry.getValue());
+            limited |= entry.getValue().isLimited();
+        }
+        long interval = properties.getSummaryInterval() == null ? 0 : properties.getSummaryInterval().toMillis();
+        if (limited && interval > 0) {
+            summaryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "rest-result-exception-log-summary");
+                thread.setDaemon(true);
+                return thread;
+            });
+            summaryExecutor.scheduleAtFixedRate(this::logSummary, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            summaryExecutor = null;
+        }
+    }
+
+    /**
+     * Log a handled exception according to its policy
+     *
+     * @param e         exception
+     * @param errorCode error code of the response
+     * @param format    message format
+     * @param arguments message arguments, without the exception
+     */
+    public void log(Throwable e, String errorCode, String format, Object... arguments) {
+        log(null, e, errorCode, format, arguments);
+    }
+
+    /**
+     * Log a handled exception according to the given policy
+     *
+     * @param policy    logging policy, the policy of the exception type when null
+     * @param e         exception
+     * @param errorCode error code of the response
+     * @param format    message format
+     * @param arguments message arguments, without the exception
+     */
+    public void log(ExceptionLogPolicy policy, Throwable e, String errorCode, String format, Object... arguments) {
+        if (policy == null) {
+            policy = getPolicy(e.getClass());
+        }
+        if (!isEnabled(policy)) {
+            return;
+        }
+        if (policy.isLimited() && !getState(errorCode).tryAcquire(policy)) {
+            return;
+        }
+        Object[] logArguments = arguments;
+        if (policy.isStackTrace()) {
+            logArguments = Arrays.copyOf(arguments, arguments.length + 1);
+            logArguments[arguments.length] = e;
+        }
+        switch (policy.getLevel()) {
+            case TRACE:
+                logger.trace(format, logArguments);
+                break;
+            case DEBUG:
+                logger.debug(format, logArguments);
+                break;
+            case INFO:
+                logger.info(format, logArguments);
+                break;
+            case WARN:
+                logger.warn(format, logArguments);
+                break;
+            default:
+                logger.error(format, logArguments);
+        }
+    }
+
+    /**
+     * Log the suppressed counts per error code since the last summary
+     */
+    public void logSummary() {
+        StringBuilder summary = null;
+        for (Map.Entry<String, ErrorCodeState> entry : states.entrySet()) {
+            long suppressed = entry.getValue().suppressed.sumThenReset();
+            if (suppressed == 0) {
+                continue;
+            }
+            if (summary == null) {
+                summary = new StringBuilder();
+            } else {
+                summary.append(", ");
+            }
+            summary.append(entry.getKey()).append('=').append(suppressed);
+        }
+        if (summary != null) {
+            logger.warn("Suppressed exception logs by error code：【{}】", summary);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (summaryExecutor != null) {
+            summaryExecutor.shutdownNow();
+            logSummary();
+        }
+    }
+
+    private ExceptionLogPolicy getPolicy(Class<?> exceptionType) {
+        ExceptionLogPolicy policy = resolvedPolicies.get(exceptionType);
+        if (policy == null) {
+            policy = resolvedPolicies.computeIfAbsent(exceptionType, this::resolvePolicy);
+        }
+        return policy;
+    }
+
+    private ExceptionLogPolicy resolvePolicy(Class<?> exceptionType) {
+        for (Class<?> type = exceptionType; type != null; type = type.getSuperclass()) {
+            ExceptionLogPolicy policy = policies.get(type);
+            if (policy != null) {
+                return policy;
+            }
+        }
+        return defaultPolicy;
+    }
+
+    private boolean isEnabled(ExceptionLogPolicy policy) {
+        switch (policy.getLevel()) {
+            case TRACE:
+                return logger.isTraceEnabled();
+            case DEBUG:
+                return logger.isDebugEnabled();
+            case INFO:
+                return logger.isInfoEnabled();
+            case WARN:
+                return logger.isWarnEnabled();
+            case OFF:
+                return false;
+            default:
+                return logger.isErrorEnabled();
+        }
+    }
+
+    private ErrorCodeState getState(String errorCode) {
+        String key = errorCode == null ? OTHER_ERROR_CODES : errorCode;
+        ErrorCodeState state = states.get(key);
+        if (state != null) {
+            return state;
+        }
+        if (states.size() >= maxErrorCodes) {
+            key = OTHER_ERROR_CODES;
+        }
+        return states.computeIfAbsent(key, k -> new ErrorCodeState());
+    }
+
+    /**
+     * Sampling counter and lock-free token bucket of an error code
+     */
+    private static final class ErrorCodeState {
+
+        private final AtomicLong occurrences = new AtomicLong();
+
+        /**
+         * Theoretical arrival time of the next permit in nanos, the token bucket expressed as a single value
+         */
+        private final AtomicLong nextPermitNanos = new AtomicLong(System.nanoTime());
+
+        private final LongAdder suppressed = new LongAdder();
+
+        boolean tryAcquire(ExceptionLogPolicy policy) {
+            int sampleRate = policy.getSampleRate();
+            if (sampleRate > 1 && (occurrences.getAndIncrement() % sampleRate) != 0) {
+                suppressed.increment();
+                return false;
+            }
+            if (policy.getPermitsPerSecond() > 0 && !tryAcquirePermit(policy)) {
+                suppressed.increment();
+                return false;
+            }
+            return true;
+        }
+
+        private boolean tryAcquirePermit(ExceptionLogPolicy policy) {
+            long interval = (long)(TimeUnit.SECONDS.toNanos(1) / policy.getPermitsPerSecond());
+            long tolerance = interval * Math.max(policy.getBurst(), 1);
+            while (true) {
+                long now = System.nanoTime();
+                long next = nextPermitNanos.get();
+                long start = next - now > 0 ? next : now;
+                if (start + interval - now > tolerance) {
+                    return false;
+                }
+                if (nextPermitNanos.compareAndSet(next, start + interval)) {
+                    return true;
+                }
+            }
+        }
+
+    }
+
+}
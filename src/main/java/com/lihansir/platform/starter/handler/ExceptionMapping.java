@@ -0,0 +1,98 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.handler;
+
+import com.lihansir.platform.common.code.RestCode;
+
+/**
+ * Response and logging of an exception type
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class ExceptionMapping {
+
+    /**
+     * Error code of the response
+     */
+    private String errorCode;
+
+    /**
+     * Error message of the response
+     */
+    private String errorMessage;
+
+    /**
+     * Error display type of the response, the one of the request context when not set
+     */
+    private Integer showType;
+
+    /**
+     * Logging policy, the exception log policy of the type when not set
+     */
+    private ExceptionLogPolicy log;
+
+    /**
+     * Whether the message of the exception replaces the error message, only for messages safe to show to clients
+     */
+    private boolean exposeMessage = false;
+
+    public ExceptionMapping() {}
+
+    public ExceptionMapping(RestCode code) {
+        this.errorCode = code.getErrorCode();
+        this.errorMessage = code.getErrorMessage();
+    }
+
+    /**
+     * Mapping of an exception type to a rest code
+     *
+     * @param code rest code
+     * @return exception mapping
+     */
+    public static ExceptionMapping of(RestCode code) {
+        return new ExceptionMapping(code);
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    public void setErrorCode(String errorCode) {
+        this.errorCode = errorCode;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public Integer getShowType() {
+        return showType;
+    }
+
+    public void setShowType(Integer showType) {
+        this.showType = showType;
+    }
+
+    public ExceptionLogPolicy getLog() {
+        return log;
+    }
+
+    public void setLog(ExceptionLogPolicy log) {
+        this.log = log;
+    }
+
+    public boolean isExposeMessage() {
+        return exposeMessage;
+    }
+
+    public void setExposeMessage(boolean exposeMessage) {
+        this.exposeMessage = exposeMessage;
+    }
+
+}
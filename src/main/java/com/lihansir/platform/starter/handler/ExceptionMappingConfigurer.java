@@ -0,0 +1,22 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.handler;
+
+/**
+ * Callback of the beans registering exception mappings, applied after the mappings of the properties
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+@FunctionalInterface
+public interface ExceptionMappingConfigurer {
+
+    /**
+     * Register exception mappings
+     *
+     * @param registry exception mapping registry
+     */
+    void configure(ExceptionMappingRegistry registry);
+
+}
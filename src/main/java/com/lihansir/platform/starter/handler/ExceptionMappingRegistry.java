@@ -0,0 +1,155 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.handler;
+
+import com.lihansir.platform.common.code.RestCode;
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import com.lihansir.platform.starter.converter.ErrorResponseTemplates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Exception types mapped to a rest code, consulted by the global exception handlers for the exceptions that carry no
+ * error code of their own. A subclass uses the mapping of its closest mapped type, the mapping of a concrete exception
+ * class is resolved once and cached, so the cost of a lookup does not grow with the number of mappings
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class ExceptionMappingRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExceptionMappingRegistry.class);
+
+    private static final int MAX_RESOLVED = 4096;
+
+    /**
+     * Cached result of a type without a mapping
+     */
+    private static final ExceptionMapping UNMAPPED = new ExceptionMapping();
+
+    private final Map<Class<?>, ExceptionMapping> mappings = new ConcurrentHashMap<>(64);
+
+    private final ConcurrentMap<Class<?>, ExceptionMapping> resolved = new ConcurrentHashMap<>(64);
+
+    private final boolean exposeUnknownMessages;
+
+    public ExceptionMappingRegistry() {
+        this(new RestResultProperties.ExceptionHandler(), Collections.emptyList());
+    }
+
+    /**
+     * Registry of the mappings of the properties, then of the configurers
+     *
+     * @param properties  exception handler properties
+     * @param configurers configurers registering further mappings
+     */
+    public ExceptionMappingRegistry(RestResultProperties.ExceptionHandler properties,
+                                    List<ExceptionMappingConfigurer> configurers) {
+        this.exposeUnknownMessages = properties.isExposeUnknownMessages();
+        ClassLoader classLoader = ExceptionMappingRegistry.class.getClassLoader();
+        for (Map.Entry<String, ExceptionMapping> entry : properties.getMappings().entrySet()) {
+            if (!ClassUtils.isPresent(entry.getKey(), classLoader)) {
+                LOGGER.warn("Exception mapping ignored, exception type not found：【{}】", entry.getKey());
+                continue;
+            }
+            Class<?> type = ClassUtils.resolveClassName(entry.getKey(), classLoader);
+            if (!Throwable.class.isAssignableFrom(type)) {
+                LOGGER.warn("Exception mapping ignored, not an exception type：【{}】", entry.getKey());
+                continue;
+            }
+            register(type.asSubclass(Throwable.class), entry.getValue());
+        }
+        for (ExceptionMappingConfigurer configurer : configurers) {
+            configurer.configure(this);
+        }
+    }
+
+    /**
+     * Map an exception type to a rest code
+     *
+     * @param type exception type, its subclasses included
+     * @param code rest code
+     * @return this registry
+     */
+    public ExceptionMappingRegistry register(Class<? extends Throwable> type, RestCode code) {
+        return register(type, ExceptionMapping.of(code));
+    }
+
+    /**
+     * Map an exception type, replacing its previous mapping
+     *
+     * @param type    exception type, its subclasses included
+     * @param mapping exception mapping
+     * @return this registry
+     */
+    public ExceptionMappingRegistry register(Class<? extends Throwable> type, ExceptionMapping mapping) {
+        if (mapping.getErrorCode() == null) {
+            throw new IllegalArgumentException("Exception mapping without an error code: " + type.getName());
+        }
+        if (!mapping.isExposeMessage()) {
+            ErrorResponseTemplates.register(mapping.getErrorCode(), mapping.getErrorMessage());
+        }
+        mappings.put(type, mapping);
+        resolved.clear();
+        return this;
+    }
+
+    /**
+     * Mapping of an exception type
+     *
+     * @param type exception type
+     * @return mapping of the type or of its closest mapped superclass, null when none is mapped
+     */
+    public ExceptionMapping resolve(Class<? extends Throwable> type) {
+        if (mappings.isEmpty()) {
+            return null;
+        }
+        ExceptionMapping mapping = resolved.get(type);
+        if (mapping == null) {
+            mapping = find(type);
+            if (resolved.size() < MAX_RESOLVED) {
+                resolved.putIfAbsent(type, mapping);
+            }
+        }
+        return mapping == UNMAPPED ? null : mapping;
+    }
+
+    /**
+     * Error message of an exception without a mapping, its own message only when exposing it is allowed
+     *
+     * @param e           exception
+     * @param defaultCode code of the response
+     * @return error message
+     */
+    public String unknownMessage(Throwable e, RestCode defaultCode) {
+        return exposeUnknownMessages ? e.getMessage() : defaultCode.getErrorMessage();
+    }
+
+    /**
+     * Number of mapped exception types
+     *
+     * @return mapping count
+     */
+    public int size() {
+        return mappings.size();
+    }
+
+    private ExceptionMapping find(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            ExceptionMapping mapping = mappings.get(current);
+            if (mapping != null) {
+                return mapping;
+            }
+        }
+        return UNMAPPED;
+    }
+
+}
@@ -4,16 +4,19 @@
 
 package com.lihansir.platform.starter.handler;
 
-import cn.hutool.core.util.ArrayUtil;
 import com.lihansir.platform.common.code.CommonCode;
 import com.lihansir.platform.common.exception.BusinessException;
 import com.lihansir.platform.common.exception.ParamException;
 import com.lihansir.platform.common.exception.WithDataException;
 import com.lihansir.platform.common.rest.RestResult;
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import com.lihansir.platform.starter.breaker.RestResultCircuitBreakerInterceptor;
+import com.lihansir.platform.starter.context.RestResultHolder;
+import com.lihansir.platform.starter.converter.ErrorResponseTemplates;
+import com.lihansir.platform.starter.metrics.RestResultMetrics;
 import com.lihansir.platform.starter.utils.CommonUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.http.converter.HttpMessageConversionException;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.BindException;
@@ -21,13 +24,19 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.servlet.NoHandlerFoundException;
 
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
 
 /**
  * Global exception interceptor
  *
+ * <p>Every handler consults the {@link ExceptionMappingRegistry} first, a mapping of the exception type or of one of
+ * its superclasses replaces the built-in response. The built-in responses of the framework exceptions are the
+ * messages returned so far.</p>
+ *
  * @author <a href="https://www.lihansir.com">Li Han</a>
  */
 @RestControllerAdvice
@@ -35,6 +44,53 @@ public class GlobalExceptionHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    private static final ExceptionMapping MISSING_PARAMETER = builtIn(CommonCode.PARAM_CHECK_ERROR, true);
+
+    private static final ExceptionMapping NOT_READABLE = builtIn(CommonCode.SERVLET_ERROR, false);
+
+    private static final ExceptionMapping SERVLET_ERROR = builtIn(CommonCode.SERVLET_ERROR, true);
+
+    private static final ExceptionMapping ILLEGAL_ARGUMENT = builtIn(CommonCode.ILLEGAL_ARGUMENT_ERROR, true);
+
+    private final ExceptionLogger exceptionLogger;
+
+    private final RestResultMetrics metrics;
+
+    private final NotFoundHandler notFoundHandler;
+
+    private final ValidationErrorAggregator validationErrorAggregator;
+
+    private final ExceptionMappingRegistry exceptionMappings;
+
+    public GlobalExceptionHandler() {
+        this(new ExceptionLogger(LOGGER, new RestResultProperties.ExceptionLog()), RestResultMetrics.NONE);
+    }
+
+    public GlobalExceptionHandler(ExceptionLogger exceptionLogger, RestResultMetrics metrics) {
+        this(exceptionLogger, metrics, new NotFoundHandler(new RestResultProperties.NotFound(), metrics));
+    }
+
+    public GlobalExceptionHandler(ExceptionLogger exceptionLogger, RestResultMetrics metrics,
+                                  NotFoundHandler notFoundHandler) {
+        this(exceptionLogger, metrics, notFoundHandler, new ValidationErrorAggregator());
+    }
+
+    public GlobalExceptionHandler(ExceptionLogger exceptionLogger, RestResultMetrics metrics,
+                                  NotFoundHandler notFoundHandler,
+                                  ValidationErrorAggregator validationErrorAggregator) {
+        this(exceptionLogger, metrics, notFoundHandler, validationErrorAggregator, new ExceptionMappingRegistry());
+    }
+
+    public GlobalExceptionHandler(ExceptionLogger exceptionLogger, RestResultMetrics metrics,
+                                  NotFoundHandler notFoundHandler, ValidationErrorAggregator validationErrorAggregator,
+                                  ExceptionMappingRegistry exceptionMappings) {
+        this.exceptionLogger = exceptionLogger;
+        this.metrics = metrics;
+        this.notFoundHandler = notFoundHandler;
+        this.validationErrorAggregator = validationErrorAggregator;
+        this.exceptionMappings = exceptionMappings;
+    }
+
     /**
      * Business logic processing exception
      *
@@ -43,9 +99,14 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(BusinessException.class)
     public RestResult<Object> businessException(BusinessException e) {
-        LOGGER.error("Business processing error，Error status code：【{}】,TraceId：【{}】,Cause of error：【{}】",
-                e.getErrorCode(), CommonUtil.getTraceId(), e.getErrorMessage(), e);
-        return CommonUtil.formatRestResult(RestResult.failedWithErrorMessage(e.getErrorCode(), e.getErrorMessage()));
+        RestResult<Object> mapped = mapped(e);
+        if (mapped != null) {
+            return mapped;
+        }
+        handled(e, e.getErrorCode(),
+                "Business processing error，Error status code：【{}】,TraceId：【{}】,Cause of error：【{}】", e.getErrorCode(),
+                CommonUtil.getTraceId(), e.getErrorMessage());
+        return failed(e.getErrorCode(), e.getErrorMessage());
     }
 
     /**
@@ -56,8 +117,13 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(WithDataException.class)
     public RestResult<Object> withDataException(WithDataException e) {
-        LOGGER.error("with data error，Error status code：【{}】,TraceId：【{}】,Cause of error：【{}】",
-                e.getErrorCode(), CommonUtil.getTraceId(), e.getErrorMessage(), e);
+        RestResult<Object> mapped = mapped(e);
+        if (mapped != null) {
+            return mapped;
+        }
+        handled(e, e.getErrorCode(),
+                "with data error，Error status code：【{}】,TraceId：【{}】,Cause of error：【{}】", e.getErrorCode(),
+                CommonUtil.getTraceId(), e.getErrorMessage());
         return CommonUtil.formatRestResult(RestResult.failed(e.getErrorCode(), e.getErrorMessage(), e.getData()));
     }
 
@@ -69,9 +135,14 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(ParamException.class)
     public RestResult<Object> paramException(ParamException e) {
-        LOGGER.error("Parameter verification error，Error status code：【{}】,TraceId：【{}】,Cause of error：【{}】",
-                e.getErrorCode(), CommonUtil.getTraceId(), e.getErrorMessage(), e);
-        return CommonUtil.formatRestResult(RestResult.failedWithErrorMessage(e.getErrorCode(), e.getErrorMessage()));
+        RestResult<Object> mapped = mapped(e);
+        if (mapped != null) {
+            return mapped;
+        }
+        handled(e, e.getErrorCode(),
+                "Parameter verification error，Error status code：【{}】,TraceId：【{}】,Cause of error：【{}】", e.getErrorCode(),
+                CommonUtil.getTraceId(), e.getErrorMessage());
+        return failed(e.getErrorCode(), e.getErrorMessage());
     }
 
     /**
@@ -82,23 +153,26 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(MissingServletRequestParameterException.class)
     public RestResult<Object> missingServletRequestParameterException(MissingServletRequestParameterException e) {
-        LOGGER.error("MissingServletRequestParameterException: 【{}】,TraceId：【{}】", e.getMessage(),
-                CommonUtil.getTraceId(), e);
-        return CommonUtil.formatRestResult(
-                RestResult.failedWithErrorMessage(CommonCode.PARAM_CHECK_ERROR.getErrorCode(), e.getMessage()));
+        return mappedOr(e, MISSING_PARAMETER, "MissingServletRequestParameterException: 【{}】,TraceId：【{}】",
+                e.getMessage(), CommonUtil.getTraceId());
     }
 
     /**
      * Request path error
      *
+     * @param e Exception
      * @return Unified response
      */
     @ExceptionHandler(NoHandlerFoundException.class)
-    public RestResult<Object> handlerNoFoundException() {
-        String requestUrl = CommonUtil.getServletRequestAttributes().getRequest().getRequestURI();
-        LOGGER.error("Path handler not found, Path：【{}】,TraceId：【{}】", requestUrl, CommonUtil.getTraceId());
-        return CommonUtil.formatRestResult(RestResult.failedWithErrorMessage(CommonCode.ERROR_URL.getErrorCode(),
-                CommonCode.ERROR_URL.getErrorMessage() + "，request path:【" + requestUrl + "】"));
+    public RestResult<Object> handlerNoFoundException(NoHandlerFoundException e) {
+        RestResult<Object> mapped = mapped(e);
+        if (mapped != null) {
+            return mapped;
+        }
+        HttpServletRequest request = CommonUtil.getServletRequestAttributes().getRequest();
+        String path = notFoundHandler.record(request.getRequestURI(), request.getRemoteAddr(),
+                RestResultHolder.current());
+        return failed(CommonCode.ERROR_URL.getErrorCode(), ErrorResponseTemplates.notFoundMessage(path));
     }
 
     /**
@@ -109,10 +183,14 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(BindException.class)
     public RestResult<Object> validatedBindException(BindException e) {
-        String errorMsg = ArrayUtil
-                .join(e.getAllErrors().stream().map(DefaultMessageSourceResolvable::getDefaultMessage).toArray(), ",");
-        LOGGER.error("Custom validation exception：【{}】,TraceId：【{}】", errorMsg, CommonUtil.getTraceId(), e);
-        return CommonUtil.formatRestResult(RestResult.failedWithErrorMessage(CommonCode.PARAM_CHECK_ERROR.getErrorCode(), errorMsg));
+        RestResult<Object> mapped = mapped(e);
+        if (mapped != null) {
+            return mapped;
+        }
+        ValidationErrorAggregator.ValidationErrors errors = validationErrorAggregator.aggregate(e, false);
+        handled(e, CommonCode.PARAM_CHECK_ERROR.getErrorCode(),
+                "Custom validation exception：【{}】,TraceId：【{}】", errors.getMessage(), CommonUtil.getTraceId());
+        return CommonUtil.formatRestResult(errors.toRestResult(CommonCode.PARAM_CHECK_ERROR.getErrorCode()));
     }
 
     /**
@@ -123,16 +201,21 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public RestResult<Object> validExceptionHandler(MethodArgumentNotValidException e) {
-        assert e.getBindingResult().getFieldError() != null;
-        String message = e.getBindingResult().getFieldError().getDefaultMessage();
-        LOGGER.error("Custom validation exception：【{}】,TraceId：【{}】", message, CommonUtil.getTraceId(), e);
-        return CommonUtil.formatRestResult(RestResult.failedWithErrorMessage(CommonCode.PARAM_CHECK_ERROR.getErrorCode(), message));
+        RestResult<Object> mapped = mapped(e);
+        if (mapped != null) {
+            return mapped;
+        }
+        ValidationErrorAggregator.ValidationErrors errors =
+                validationErrorAggregator.aggregate(e.getBindingResult(), true);
+        handled(e, CommonCode.PARAM_CHECK_ERROR.getErrorCode(),
+                "Custom validation exception：【{}】,TraceId：【{}】", errors.getMessage(), CommonUtil.getTraceId());
+        return CommonUtil.formatRestResult(errors.toRestResult(CommonCode.PARAM_CHECK_ERROR.getErrorCode()));
     }
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public RestResult<Object> httpMessageNotReadableExceptionHandler(HttpMessageNotReadableException e) {
-        LOGGER.error("HttpMessageNotReadable exception：【{}】,TraceId：【{}】", e.getMessage(), CommonUtil.getTraceId(), e);
-        return CommonUtil.formatRestResult(RestResult.failed(CommonCode.SERVLET_ERROR));
+        return mappedOr(e, NOT_READABLE, "HttpMessageNotReadable exception：【{}】,TraceId：【{}】", e.getMessage(),
+                CommonUtil.getTraceId());
     }
 
     /**
@@ -143,27 +226,33 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(value = ServletException.class)
     public RestResult<Object> servletExceptionHandler(ServletException e) {
-        LOGGER.error("Servlet Exception：【{}】,TraceId：【{}】", e.getMessage(), CommonUtil.getTraceId(), e);
-        return CommonUtil.formatRestResult(RestResult.failedWithErrorMessage(CommonCode.SERVLET_ERROR.getErrorCode(), e.getMessage()));
+        return mappedOr(e, SERVLET_ERROR, "Servlet Exception：【{}】,TraceId：【{}】", e.getMessage(),
+                CommonUtil.getTraceId());
     }
 
     @ExceptionHandler(value = HttpMessageConversionException.class)
     public RestResult<Object> httpMessageConversionExceptionHandler(HttpMessageConversionException e) {
-        LOGGER.error("HttpMessageConversionException：【{}】,TraceId：【{}】", e.getMessage(), CommonUtil.getTraceId(), e);
-        return CommonUtil.formatRestResult(RestResult.failedWithErrorMessage(CommonCode.SERVLET_ERROR.getErrorCode(), e.getMessage()));
+        return mappedOr(e, SERVLET_ERROR, "HttpMessageConversionException：【{}】,TraceId：【{}】", e.getMessage(),
+                CommonUtil.getTraceId());
     }
 
     /**
-     * Runtime exception
+     * Runtime exception, its message is not returned unless allowed
      *
      * @param e Exception
      * @return Unified response
      */
     @ExceptionHandler(value = RuntimeException.class)
     public RestResult<Object> runtimeExceptionHandler(RuntimeException e) {
-        LOGGER.error("A runtime error occurred on the server，Cause of error：【{}】,TraceId：【{}】", e.getMessage(),
-                CommonUtil.getTraceId(), e);
-        return CommonUtil.formatRestResult(RestResult.failedWithErrorMessage(CommonCode.PROGRAM_EXECUTION_EXCEPTION.getErrorCode(), e.getMessage()));
+        RestResult<Object> mapped = mapped(e);
+        if (mapped != null) {
+            return mapped;
+        }
+        handled(e, CommonCode.PROGRAM_EXECUTION_EXCEPTION.getErrorCode(),
+                "A runtime error occurred on the server，Cause of error：【{}】,TraceId：【{}】", e.getMessage(),
+                CommonUtil.getTraceId());
+        return failed(CommonCode.PROGRAM_EXECUTION_EXCEPTION.getErrorCode(),
+                exceptionMappings.unknownMessage(e, CommonCode.PROGRAM_EXECUTION_EXCEPTION));
     }
 
     /**
@@ -174,22 +263,110 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(value = IllegalArgumentException.class)
     public RestResult<Object> illegalArgumentExceptionHandler(IllegalArgumentException e) {
-        LOGGER.error("Error during inspection，Cause of error：【{}】,TraceId：【{}】", e.getMessage(),
-                CommonUtil.getTraceId(), e);
-        return CommonUtil.formatRestResult(
-                RestResult.failedWithErrorMessage(CommonCode.ILLEGAL_ARGUMENT_ERROR.getErrorCode(), e.getMessage()));
+        return mappedOr(e, ILLEGAL_ARGUMENT, "Error during inspection，Cause of error：【{}】,TraceId：【{}】",
+                e.getMessage(), CommonUtil.getTraceId());
     }
 
     /**
-     * Exception
+     * Exception, its message is not returned unless allowed
      *
      * @param e Exception
      * @return Unified response
      */
     @ExceptionHandler(Exception.class)
     public RestResult<Object> handleException(Exception e) {
-        LOGGER.error("Exception：【{}】,TraceId：【{}】", e.toString(), CommonUtil.getTraceId(), e);
-        return CommonUtil.formatRestResult(RestResult.failedWithErrorMessage(CommonCode.PROGRAM_EXECUTION_EXCEPTION.getErrorCode(), e.getMessage()));
+        RestResult<Object> mapped = mapped(e);
+        if (mapped != null) {
+            return mapped;
+        }
+        handled(e, CommonCode.PROGRAM_EXECUTION_EXCEPTION.getErrorCode(), "Exception：【{}】,TraceId：【{}】",
+                e.toString(), CommonUtil.getTraceId());
+        return failed(CommonCode.PROGRAM_EXECUTION_EXCEPTION.getErrorCode(),
+                exceptionMappings.unknownMessage(e, CommonCode.PROGRAM_EXECUTION_EXCEPTION));
+    }
+
+    /**
+     * Response of an exception whose type is mapped in the registry
+     *
+     * @param e Exception
+     * @return Unified response, null when the type is not mapped
+     */
+    private RestResult<Object> mapped(Exception e) {
+        ExceptionMapping mapping = exceptionMappings.resolve(e.getClass());
+        if (mapping == null) {
+            return null;
+        }
+        handled(mapping.getLog(), e, mapping.getErrorCode(),
+                "Mapped exception，Error status code：【{}】,TraceId：【{}】,Cause of error：【{}】", mapping.getErrorCode(),
+                CommonUtil.getTraceId(), e.toString());
+        return failed(mapping, e);
+    }
+
+    /**
+     * Response of an exception mapped in the registry, of its built-in mapping otherwise
+     *
+     * @param e         Exception
+     * @param builtIn   Built-in mapping of the handler
+     * @param format    Log message format of the built-in response
+     * @param arguments Log message arguments
+     * @return Unified response
+     */
+    private RestResult<Object> mappedOr(Exception e, ExceptionMapping builtIn, String format, Object... arguments) {
+        RestResult<Object> mapped = mapped(e);
+        if (mapped != null) {
+            return mapped;
+        }
+        handled(e, builtIn.getErrorCode(), format, arguments);
+        return failed(builtIn, e);
+    }
+
+    private static RestResult<Object> failed(ExceptionMapping mapping, Exception e) {
+        String errorMessage = mapping.isExposeMessage() && e.getMessage() != null ? e.getMessage()
+                : mapping.getErrorMessage();
+        RestResult<Object> result = failed(mapping.getErrorCode(), errorMessage);
+        if (mapping.getShowType() != null) {
+            result.setShowType(mapping.getShowType());
+        }
+        return result;
+    }
+
+    private static ExceptionMapping builtIn(CommonCode code, boolean exposeMessage) {
+        ExceptionMapping mapping = ExceptionMapping.of(code);
+        mapping.setExposeMessage(exposeMessage);
+        return mapping;
+    }
+
+    /**
+     * Failed response without data, written from its pre-encoded template by the unified response converter
+     *
+     * @param errorCode    Error code
+     * @param errorMessage Error message
+     * @return Unified response
+     */
+    private static RestResult<Object> failed(String errorCode, String errorMessage) {
+        return CommonUtil.formatRestResult(RestResult.failedWithErrorMessage(errorCode, errorMessage));
+    }
+
+    /**
+     * Record and log a handled exception, counting it against the circuit breaker of the handler
+     *
+     * @param e         Exception
+     * @param errorCode Error code of the response
+     * @param format    Log message format
+     * @param arguments Log message arguments
+     */
+    private void handled(Throwable e, String errorCode, String format, Object... arguments) {
+        handled(null, e, errorCode, format, arguments);
+    }
+
+    private void handled(ExceptionLogPolicy policy, Throwable e, String errorCode, String format,
+                         Object... arguments) {
+        metrics.recordException(e, errorCode);
+        ServletRequestAttributes attributes = CommonUtil.getServletRequestAttributes();
+        if (attributes != null) {
+            RestResultCircuitBreakerInterceptor.recordError(attributes.getRequest(), errorCode);
+        }
+        exceptionLogger.log(policy, e, errorCode, format, arguments);
     }
 
 }
@@ -0,0 +1,258 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.handler;
+
+import com.lihansir.platform.common.code.CommonCode;
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import com.lihansir.platform.starter.context.RestResultContextView;
+import com.lihansir.platform.starter.converter.EncodedRestResult;
+import com.lihansir.platform.starter.converter.ErrorResponseTemplates;
+import com.lihansir.platform.starter.metrics.RestResultMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared handling of the requests without a handler, built so that scanner traffic stays cheap
+ *
+ * <p>Paths are normalized and truncated before they are logged, counted or echoed. Bounded LRUs of recent paths,
+ * striped by hash so that concurrent requests rarely share a lock, keep a counter per path and only the first
+ * occurrence of a path is logged. Clients above their rate get the pre-encoded not found response without the path,
+ * with no logging and no metrics.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class NotFoundHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotFoundHandler.class);
+
+    private static final String OTHER_CLIENTS = "other";
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Number of independently locked LRU maps the tracked paths are spread over, a power of two
+     */
+    private static final int PATH_STRIPES = 16;
+
+    private final RestResultMetrics metrics;
+
+    private final int maxPathLength;
+
+    private final int maxClients;
+
+    /**
+     * Interval between two permits of a client in nanos, 0 when clients are not throttled
+     */
+    private final long permitInterval;
+
+    private final long permitTolerance;
+
+    /**
+     * Theoretical arrival time of the next permit per client, the token bucket expressed as a single value
+     */
+    private final ConcurrentMap<String, AtomicLong> clients = new ConcurrentHashMap<>(256);
+
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    /**
+     * Recently seen paths, striped by hash so that concurrent requests rarely wait on the same lock
+     */
+    private final PathStripe[] paths = new PathStripe[PATH_STRIPES];
+
+    private final LongAdder throttled = new LongAdder();
+
+    public NotFoundHandler(RestResultProperties.NotFound properties, RestResultMetrics metrics) {
+        this.metrics = metrics;
+        this.maxPathLength = Math.max(properties.getMaxPathLength(), 1);
+        this.maxClients = properties.getMaxClients();
+        this.permitInterval = properties.getClientPermitsPerSecond() > 0
+                ? (long)(TimeUnit.SECONDS.toNanos(1) / properties.getClientPermitsPerSecond()) : 0;
+        this.permitTolerance = permitInterval * Math.max(properties.getClientBurst(), 1);
+        int stripeSize = Math.max(1, (properties.getMaxTrackedPaths() + PATH_STRIPES - 1) / PATH_STRIPES);
+        for (int i = 0; i < PATH_STRIPES; i++) {
+            paths[i] = new PathStripe(stripeSize);
+        }
+    }
+
+    /**
+     * Count, log and answer a request without a handler
+     *
+     * @param requestPath raw request path
+     * @param clientIp    address of the client, may be null
+     * @param context     request context
+     * @return pre-encoded response
+     */
+    public EncodedRestResult handle(String requestPath, String clientIp, RestResultContextView context) {
+        String path = record(requestPath, clientIp, context);
+        return path == null ? ErrorResponseTemplates.failed(CommonCode.ERROR_URL, context)
+                : ErrorResponseTemplates.notFound(path, context);
+    }
+
+    /**
+     * Count and log a request without a handler
+     *
+     * @param requestPath raw request path
+     * @param clientIp    address of the client, may be null
+     * @param context     request context
+     * @return normalized path, null when the client is throttled and the path is left out of the response
+     */
+    public String record(String requestPath, String clientIp, RestResultContextView context) {
+        if (!tryAcquire(clientIp == null ? OTHER_CLIENTS : clientIp)) {
+            throttled.increment();
+            return null;
+        }
+        String path = normalizePath(requestPath, maxPathLength);
+        if (track(path)) {
+            LOGGER.warn("Path handler not found, Path：【{}】,TraceId：【{}】", path, context.getTraceId());
+        }
+        metrics.recordNotFound(path);
+        return path;
+    }
+
+    /**
+     * Number of responses short-circuited by the client throttling
+     *
+     * @return throttled count
+     */
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    /**
+     * Counters of the recently seen paths, least recently seen first within each stripe
+     *
+     * @return path counts
+     */
+    public Map<String, Long> getTrackedPaths() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        for (PathStripe stripe : paths) {
+            synchronized (stripe) {
+                for (Map.Entry<String, LongAdder> entry : stripe.entrySet()) {
+                    snapshot.put(entry.getKey(), entry.getValue().sum());
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Drop the query and fragment, collapse repeated slashes, mask control characters and truncate
+     *
+     * @param requestPath   raw request path
+     * @param maxPathLength maximum length kept
+     * @return normalized path
+     */
+    public static String normalizePath(String requestPath, int maxPathLength) {
+        if (requestPath == null || requestPath.isEmpty()) {
+            return "/";
+        }
+        StringBuilder path = new StringBuilder(Math.min(requestPath.length(), maxPathLength) + 3);
+        char previous = 0;
+        for (int i = 0; i < requestPath.length(); i++) {
+            char c = requestPath.charAt(i);
+            if (c == '?' || c == '#' || c == ';') {
+                break;
+            }
+            if (c == '/' && previous == '/') {
+                continue;
+            }
+            if (path.length() >= maxPathLength) {
+                path.append("...");
+                break;
+            }
+            path.append(c < 0x20 || c == 0x7F ? '?' : c);
+            previous = c;
+        }
+        return path.length() == 0 ? "/" : path.toString();
+    }
+
+    /**
+     * Count a path
+     *
+     * @return true when the path was not tracked
+     */
+    private boolean track(String path) {
+        int hash = path.hashCode();
+        PathStripe stripe = paths[(hash ^ (hash >>> 16)) & (PATH_STRIPES - 1)];
+        LongAdder counter;
+        synchronized (stripe) {
+            counter = stripe.get(path);
+            if (counter == null) {
+                counter = new LongAdder();
+                counter.increment();
+                stripe.put(path, counter);
+                return true;
+            }
+        }
+        counter.increment();
+        return false;
+    }
+
+    private boolean tryAcquire(String client) {
+        if (permitInterval == 0) {
+            return true;
+        }
+        AtomicLong nextPermit = clients.get(client);
+        if (nextPermit == null) {
+            if (clients.size() >= maxClients && !sweep()) {
+                client = OTHER_CLIENTS;
+            }
+            nextPermit = clients.computeIfAbsent(client, k -> new AtomicLong(System.nanoTime()));
+        }
+        while (true) {
+            long now = System.nanoTime();
+            long next = nextPermit.get();
+            long start = next - now > 0 ? next : now;
+            if (start + permitInterval - now > permitTolerance) {
+                return false;
+            }
+            if (nextPermit.compareAndSet(next, start + permitInterval)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Forget the clients whose bucket is full again, at most once per second
+     *
+     * @return true when there is room for another client
+     */
+    private boolean sweep() {
+        long now = System.nanoTime();
+        long last = lastSweep.get();
+        if (now - last >= SWEEP_INTERVAL_NANOS && lastSweep.compareAndSet(last, now)) {
+            clients.values().removeIf(nextPermit -> nextPermit.get() - now <= 0);
+        }
+        return clients.size() < maxClients;
+    }
+
+    /**
+     * Bounded LRU of the paths of one stripe, guarded by its own monitor
+     */
+    private static final class PathStripe extends LinkedHashMap<String, LongAdder> {
+
+        private final int maxSize;
+
+        PathStripe(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LongAdder> eldest) {
+            return size() > maxSize;
+        }
+
+    }
+
+}
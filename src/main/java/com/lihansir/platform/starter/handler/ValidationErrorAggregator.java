@@ -0,0 +1,214 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.handler;
+
+import com.lihansir.platform.common.code.CommonCode;
+import com.lihansir.platform.common.rest.RestResult;
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import org.springframework.context.MessageSource;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the response of a failed validation, reading at most the configured number of errors however many the
+ * binding result holds
+ *
+ * <p>Messages resolved through the message source are cached per constraint, field and locale, the list indexes of
+ * the field are left out of the key so the elements of a bulk request share one entry.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class ValidationErrorAggregator {
+
+    private static final int MAX_MESSAGES = 4096;
+
+    private static final String SEPARATOR = ",";
+
+    private final ValidationErrorMode mode;
+
+    private final int maxErrors;
+
+    private final MessageSource messageSource;
+
+    private final Map<String, String> messages = new ConcurrentHashMap<>(64);
+
+    public ValidationErrorAggregator() {
+        this(new RestResultProperties.Validation(), null);
+    }
+
+    /**
+     * Aggregator resolving the messages through the given message source when the properties ask for it
+     *
+     * @param properties    validation error properties
+     * @param messageSource message source, null for the default messages
+     */
+    public ValidationErrorAggregator(RestResultProperties.Validation properties, MessageSource messageSource) {
+        this.mode = properties.getMode();
+        this.maxErrors = Math.max(1, properties.getMaxErrors());
+        this.messageSource = properties.isResolveMessages() ? messageSource : null;
+    }
+
+    /**
+     * Errors of a binding result
+     *
+     * @param bindingResult binding result
+     * @param firstOnly     whether the message mode reports the first field error only
+     * @return validation errors
+     */
+    public ValidationErrors aggregate(BindingResult bindingResult, boolean firstOnly) {
+        Locale locale = messageSource == null ? null : LocaleContextHolder.getLocale();
+        if (mode == ValidationErrorMode.MESSAGE && firstOnly) {
+            ObjectError error = bindingResult.getFieldError();
+            if (error == null) {
+                error = bindingResult.getGlobalError();
+            }
+            return new ValidationErrors(error == null ? CommonCode.PARAM_CHECK_ERROR.getErrorMessage()
+                    : message(error, locale), null);
+        }
+        List<ObjectError> errors = bindingResult.getAllErrors();
+        int count = errors.size();
+        int reported = Math.min(count, maxErrors);
+        if (reported == 0) {
+            return new ValidationErrors(CommonCode.PARAM_CHECK_ERROR.getErrorMessage(), null);
+        }
+        if (mode == ValidationErrorMode.MESSAGE) {
+            StringBuilder message = new StringBuilder(reported * 32);
+            for (int i = 0; i < reported; i++) {
+                if (i > 0) {
+                    message.append(SEPARATOR);
+                }
+                message.append(message(errors.get(i), locale));
+            }
+            if (count > reported) {
+                message.append(SEPARATOR).append("...");
+            }
+            return new ValidationErrors(message.toString(), null);
+        }
+        Map<String, List<String>> fields = new LinkedHashMap<>(reported * 2);
+        String first = null;
+        for (int i = 0; i < reported; i++) {
+            ObjectError error = errors.get(i);
+            String message = message(error, locale);
+            if (first == null) {
+                first = message;
+            }
+            String field = error instanceof FieldError ? ((FieldError)error).getField() : error.getObjectName();
+            List<String> fieldMessages = fields.get(field);
+            if (fieldMessages == null) {
+                fieldMessages = new ArrayList<>(2);
+                fields.put(field, fieldMessages);
+            }
+            fieldMessages.add(message);
+        }
+        Map<String, Object> data = new LinkedHashMap<>(8);
+        data.put("fields", fields);
+        data.put("errorCount", count);
+        data.put("truncated", count > reported);
+        return new ValidationErrors(first, data);
+    }
+
+    private String message(ObjectError error, Locale locale) {
+        String defaultMessage = error.getDefaultMessage() != null ? error.getDefaultMessage() : error.getCode();
+        if (messageSource == null) {
+            return defaultMessage;
+        }
+        String key = key(error, defaultMessage, locale);
+        String message = messages.get(key);
+        if (message != null) {
+            return message;
+        }
+        try {
+            message = messageSource.getMessage(error, locale);
+        } catch (NoSuchMessageException e) {
+            message = defaultMessage;
+        }
+        if (messages.size() < MAX_MESSAGES) {
+            messages.putIfAbsent(key, message);
+        }
+        return message;
+    }
+
+    /**
+     * Constraint, object, field without its list indexes, locale and default message, which carries the constraint
+     * attributes
+     */
+    private static String key(ObjectError error, String defaultMessage, Locale locale) {
+        StringBuilder key = new StringBuilder(96).append(error.getCode()).append('\u0000').append(error.getObjectName())
+                .append('\u0000');
+        if (error instanceof FieldError) {
+            String field = ((FieldError)error).getField();
+            boolean index = false;
+            for (int i = 0; i < field.length(); i++) {
+                char c = field.charAt(i);
+                if (c == '[') {
+                    index = true;
+                    key.append(c);
+                } else if (c == ']') {
+                    index = false;
+                    key.append(c);
+                } else if (!index) {
+                    key.append(c);
+                }
+            }
+        }
+        return key.append('\u0000').append(locale).append('\u0000').append(defaultMessage).toString();
+    }
+
+    /**
+     * Errors of a failed validation
+     */
+    public static final class ValidationErrors {
+
+        private final String message;
+
+        private final Map<String, Object> data;
+
+        private ValidationErrors(String message, Map<String, Object> data) {
+            this.message = message;
+            this.data = data;
+        }
+
+        /**
+         * Error message of the response
+         *
+         * @return error message
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * Field errors, the total error count and whether the fields were truncated
+         *
+         * @return data of the response, null in the message mode
+         */
+        public Map<String, Object> getData() {
+            return data;
+        }
+
+        /**
+         * Failed response with the given error code, not yet filled with the request context
+         *
+         * @param errorCode error code
+         * @return unified response
+         */
+        public RestResult<Object> toRestResult(String errorCode) {
+            return data == null ? RestResult.failedWithErrorMessage(errorCode, message)
+                    : RestResult.failed(errorCode, message, data);
+        }
+
+    }
+
+}
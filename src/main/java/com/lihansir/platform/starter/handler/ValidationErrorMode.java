@@ -0,0 +1,24 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.handler;
+
+/**
+ * Shape of the response of a failed validation
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public enum ValidationErrorMode {
+
+    /**
+     * Error messages joined into the error message of the response
+     */
+    MESSAGE,
+
+    /**
+     * First error message in the error message, the messages of every field in the data of the response
+     */
+    FIELDS
+
+}
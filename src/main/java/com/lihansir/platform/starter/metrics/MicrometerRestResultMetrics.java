@@ -0,0 +1,139 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Micrometer instrumentation, meters are cached and every tag has a bounded number of values
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class MicrometerRestResultMetrics implements RestResultMetrics {
+
+    private static final String OTHER = "other";
+
+    private static final int MAX_PATH_SEGMENTS = 3;
+
+    private final MeterRegistry registry;
+
+    private final int maxTagValues;
+
+    private final ConcurrentMap<Method, Timer> wrapTimers = new ConcurrentHashMap<>(256);
+
+    private final ConcurrentMap<String, Counter> exceptionCounters = new ConcurrentHashMap<>(64);
+
+    private final ConcurrentMap<String, Counter> notFoundCounters = new ConcurrentHashMap<>(64);
+
+    private final DistributionSummary payloadSummary;
+
+    public MicrometerRestResultMetrics(MeterRegistry registry, int maxTagValues) {
+        this.registry = registry;
+        this.maxTagValues = maxTagValues;
+        this.payloadSummary = DistributionSummary.builder("lihansir.rest-result.payload")
+                .description("Size of the unified responses written by the starter").baseUnit("bytes")
+                .publishPercentileHistogram().register(registry);
+    }
+
+    @Override
+    public void recordWrap(Method handler, long nanos) {
+        Timer timer = wrapTimers.get(handler);
+        if (timer == null) {
+            timer = wrapTimers.computeIfAbsent(handler, method -> Timer.builder("lihansir.rest-result.wrap")
+                    .description("Time spent wrapping and writing responses into the unified response")
+                    .tag("handler", method.getDeclaringClass().getSimpleName() + "#" + method.getName())
+                    .register(registry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordException(Throwable e, String errorCode) {
+        String exception = e.getClass().getSimpleName();
+        String key = errorCode + '|' + exception;
+        counter(exceptionCounters, key, k -> Counter.builder("lihansir.rest-result.exceptions")
+                .description("Exceptions handled by the global exception handler")
+                .tags("errorCode", String.valueOf(errorCode), "exception", exception).register(registry)).increment();
+    }
+
+    @Override
+    public void recordNotFound(String requestPath) {
+        String path = normalizePath(requestPath);
+        counter(notFoundCounters, path, k -> Counter.builder("lihansir.rest-result.not-found")
+                .description("Requests without a handler").tag("path", k).register(registry)).increment();
+    }
+
+    @Override
+    public void recordPayload(long bytes) {
+        payloadSummary.record(bytes);
+    }
+
+    private Counter counter(ConcurrentMap<String, Counter> counters, String key, Function<String, Counter> factory) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            return counter;
+        }
+        if (counters.size() >= maxTagValues) {
+            key = OTHER;
+        }
+        return counters.computeIfAbsent(key, factory);
+    }
+
+    /**
+     * Keep the first path segments only and replace the segments holding ids, numbers or anything unusual
+     *
+     * @param requestPath raw request path
+     * @return normalized path
+     */
+    static String normalizePath(String requestPath) {
+        if (requestPath == null || requestPath.isEmpty()) {
+            return "/";
+        }
+        StringBuilder path = new StringBuilder(32);
+        int segments = 0;
+        int start = requestPath.charAt(0) == '/' ? 1 : 0;
+        while (start < requestPath.length() && segments < MAX_PATH_SEGMENTS) {
+            int end = requestPath.indexOf('/', start);
+            if (end < 0) {
+                end = requestPath.length();
+            }
+            if (end > start) {
+                path.append('/');
+                appendSegment(path, requestPath, start, end);
+                segments++;
+            }
+            start = end + 1;
+        }
+        if (start < requestPath.length()) {
+            path.append("/**");
+        }
+        return path.length() == 0 ? "/" : path.toString();
+    }
+
+    private static void appendSegment(StringBuilder path, String requestPath, int start, int end) {
+        if (end - start > 32) {
+            path.append("{var}");
+            return;
+        }
+        for (int i = start; i < end; i++) {
+            char c = requestPath.charAt(i);
+            if (!(Character.isLetter(c) || c == '-' || c == '_' || c == '.')) {
+                path.append("{var}");
+                return;
+            }
+        }
+        path.append(requestPath, start, end);
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.metrics;
+
+import java.lang.reflect.Method;
+
+/**
+ * Instrumentation of the unified responses and the handled exceptions, every method is a no-op by default
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public interface RestResultMetrics {
+
+    /**
+     * Instrumentation doing nothing, used when no meter registry is available
+     */
+    RestResultMetrics NONE = new RestResultMetrics() {};
+
+    /**
+     * Record a wrapped response
+     *
+     * @param handler handler method
+     * @param nanos   time spent wrapping the response, serialization included when the starter writes it
+     */
+    default void recordWrap(Method handler, long nanos) {}
+
+    /**
+     * Record a handled exception
+     *
+     * @param e         exception
+     * @param errorCode error code of the response
+     */
+    default void recordException(Throwable e, String errorCode) {}
+
+    /**
+     * Record a request path that has no handler
+     *
+     * @param requestPath raw request path
+     */
+    default void recordNotFound(String requestPath) {}
+
+    /**
+     * Record the size of a unified response written by the starter
+     *
+     * @param bytes payload size
+     */
+    default void recordPayload(long bytes) {}
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.reactive;
+
+import com.lihansir.platform.common.code.CommonCode;
+import com.lihansir.platform.common.exception.BusinessException;
+import com.lihansir.platform.common.exception.ParamException;
+import com.lihansir.platform.common.exception.WithDataException;
+import com.lihansir.platform.common.rest.RestResult;
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import com.lihansir.platform.starter.context.RestResultContextView;
+import com.lihansir.platform.starter.converter.ErrorResponseTemplates;
+import com.lihansir.platform.starter.handler.ExceptionLogPolicy;
+import com.lihansir.platform.starter.handler.ExceptionLogger;
+import com.lihansir.platform.starter.handler.ExceptionMapping;
+import com.lihansir.platform.starter.handler.ExceptionMappingRegistry;
+import com.lihansir.platform.starter.handler.NotFoundHandler;
+import com.lihansir.platform.starter.handler.ValidationErrorAggregator;
+import com.lihansir.platform.starter.metrics.RestResultMetrics;
+import com.lihansir.platform.starter.serializer.RestResultSerializers;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.server.WebExceptionHandler;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Global exception handling of reactive applications, the reactive counterpart of {@code GlobalExceptionHandler}
+ *
+ * <p>Runs ahead of the boot error web exception handler and answers every exception with a unified response.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class ReactiveGlobalExceptionHandler implements WebExceptionHandler, Ordered {
+
+    private final ExceptionLogger exceptionLogger;
+
+    private final RestResultMetrics metrics;
+
+    private final NotFoundHandler notFoundHandler;
+
+    private final ValidationErrorAggregator validationErrorAggregator;
+
+    private final ExceptionMappingRegistry exceptionMappings;
+
+    public ReactiveGlobalExceptionHandler(ExceptionLogger exceptionLogger, RestResultMetrics metrics) {
+        this(exceptionLogger, metrics, new NotFoundHandler(new RestResultProperties.NotFound(), metrics));
+    }
+
+    public ReactiveGlobalExceptionHandler(ExceptionLogger exceptionLogger, RestResultMetrics metrics,
+                                          NotFoundHandler notFoundHandler) {
+        this(exceptionLogger, metrics, notFoundHandler, new ValidationErrorAggregator());
+    }
+
+    public ReactiveGlobalExceptionHandler(ExceptionLogger exceptionLogger, RestResultMetrics metrics,
+                                          NotFoundHandler notFoundHandler,
+                                          ValidationErrorAggregator validationErrorAggregator) {
+        this(exceptionLogger, metrics, notFoundHandler, validationErrorAggregator, new ExceptionMappingRegistry());
+    }
+
+    public ReactiveGlobalExceptionHandler(ExceptionLogger exceptionLogger, RestResultMetrics metrics,
+                                          NotFoundHandler notFoundHandler,
+                                          ValidationErrorAggregator validationErrorAggregator,
+                                          ExceptionMappingRegistry exceptionMappings) {
+        this.exceptionLogger = exceptionLogger;
+        this.metrics = metrics;
+        this.notFoundHandler = notFoundHandler;
+        this.validationErrorAggregator = validationErrorAggregator;
+        this.exceptionMappings = exceptionMappings;
+    }
+
+    @Override
+    public int getOrder() {
+        return -2;
+    }
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
+        ServerHttpResponse response = exchange.getResponse();
+        if (response.isCommitted()) {
+            return Mono.error(ex);
+        }
+        byte[] body = resolve(exchange, ex, ReactiveRestResultContext.read(exchange));
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(body.length);
+        metrics.recordPayload(body.length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+    }
+
+    private byte[] resolve(ServerWebExchange exchange, Throwable ex, RestResultContextView context) {
+        String traceId = context.getTraceId();
+        ExceptionMapping mapping = exceptionMappings.resolve(ex.getClass());
+        if (mapping != null) {
+            handled(mapping.getLog(), ex, mapping.getErrorCode(),
+                    "Mapped exception，Error status code：【{}】,TraceId：【{}】,Cause of error：【{}】",
+                    mapping.getErrorCode(), traceId, ex.toString());
+            String errorMessage = mapping.isExposeMessage() && ex.getMessage() != null ? ex.getMessage()
+                    : mapping.getErrorMessage();
+            return ErrorResponseTemplates.failed(mapping.getErrorCode(), errorMessage, mapping.getShowType(), context)
+                    .toBytes();
+        }
+        if (ex instanceof BusinessException) {
+            BusinessException e = (BusinessException)ex;
+            handled(e, e.getErrorCode(),
+                    "Business processing error，Error status code：【{}】,TraceId：【{}】,Cause of error：【{}】",
+                    e.getErrorCode(), traceId, e.getErrorMessage());
+            return ErrorResponseTemplates.failed(e.getErrorCode(), e.getErrorMessage(), context).toBytes();
+        }
+        if (ex instanceof ParamException) {
+            ParamException e = (ParamException)ex;
+            handled(e, e.getErrorCode(),
+                    "Parameter verification error，Error status code：【{}】,TraceId：【{}】,Cause of error：【{}】",
+                    e.getErrorCode(), traceId, e.getErrorMessage());
+            return ErrorResponseTemplates.failed(e.getErrorCode(), e.getErrorMessage(), context).toBytes();
+        }
+        if (ex instanceof WithDataException) {
+            WithDataException e = (WithDataException)ex;
+            handled(e, e.getErrorCode(), "with data error，Error status code：【{}】,TraceId：【{}】,Cause of error：【{}】",
+                    e.getErrorCode(), traceId, e.getErrorMessage());
+            return encode(RestResult.failed(e.getErrorCode(), e.getErrorMessage(), e.getData()), context);
+        }
+        if (ex instanceof WebExchangeBindException) {
+            ValidationErrorAggregator.ValidationErrors errors =
+                    validationErrorAggregator.aggregate((WebExchangeBindException)ex, false);
+            handled(ex, CommonCode.PARAM_CHECK_ERROR.getErrorCode(), "Custom validation exception：【{}】,TraceId：【{}】",
+                    errors.getMessage(), traceId);
+            return encode(errors.toRestResult(CommonCode.PARAM_CHECK_ERROR.getErrorCode()), context);
+        }
+        if (ex instanceof ResponseStatusException
+                && ((ResponseStatusException)ex).getStatus() == HttpStatus.NOT_FOUND) {
+            InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+            metrics.recordException(ex, CommonCode.ERROR_URL.getErrorCode());
+            return notFoundHandler.handle(exchange.getRequest().getPath().value(),
+                    remoteAddress == null || remoteAddress.getAddress() == null ? null
+                            : remoteAddress.getAddress().getHostAddress(), context).toBytes();
+        }
+        if (ex instanceof ServerWebInputException) {
+            String reason = ((ServerWebInputException)ex).getReason();
+            handled(ex, CommonCode.PARAM_CHECK_ERROR.getErrorCode(), "ServerWebInputException: 【{}】,TraceId：【{}】",
+                    reason, traceId);
+            return ErrorResponseTemplates.failed(CommonCode.PARAM_CHECK_ERROR.getErrorCode(), reason, context)
+                    .toBytes();
+        }
+        if (ex instanceof ResponseStatusException) {
+            String reason = ((ResponseStatusException)ex).getReason();
+            handled(ex, CommonCode.SERVLET_ERROR.getErrorCode(), "ResponseStatusException：【{}】,TraceId：【{}】",
+                    ex.getMessage(), traceId);
+            return ErrorResponseTemplates.failed(CommonCode.SERVLET_ERROR.getErrorCode(), reason, context).toBytes();
+        }
+        if (ex instanceof IllegalArgumentException) {
+            handled(ex, CommonCode.ILLEGAL_ARGUMENT_ERROR.getErrorCode(),
+                    "Error during inspection，Cause of error：【{}】,TraceId：【{}】", ex.getMessage(), traceId);
+            return encode(RestResult.failedWithErrorMessage(CommonCode.ILLEGAL_ARGUMENT_ERROR.getErrorCode(),
+                    ex.getMessage()), context);
+        }
+        handled(ex, CommonCode.PROGRAM_EXECUTION_EXCEPTION.getErrorCode(), "Exception：【{}】,TraceId：【{}】",
+                ex.toString(), traceId);
+        return ErrorResponseTemplates.failed(CommonCode.PROGRAM_EXECUTION_EXCEPTION.getErrorCode(),
+                exceptionMappings.unknownMessage(ex, CommonCode.PROGRAM_EXECUTION_EXCEPTION), context).toBytes();
+    }
+
+    private void handled(Throwable e, String errorCode, String format, Object... arguments) {
+        handled(null, e, errorCode, format, arguments);
+    }
+
+    private void handled(ExceptionLogPolicy policy, Throwable e, String errorCode, String format,
+                         Object... arguments) {
+        metrics.recordException(e, errorCode);
+        exceptionLogger.log(policy, e, errorCode, format, arguments);
+    }
+
+    private static byte[] encode(RestResult<Object> result, RestResultContextView context) {
+        result.setTraceId(context.getTraceId());
+        result.setHost(context.getHost());
+        result.setShowType(context.getErrorShowType());
+        return RestResultSerializers.get().toBytes(result);
+    }
+
+}
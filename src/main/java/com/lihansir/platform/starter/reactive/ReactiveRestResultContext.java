@@ -0,0 +1,124 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.reactive;
+
+import cn.hutool.core.util.StrUtil;
+import com.lihansir.platform.starter.context.RestResultContext;
+import com.lihansir.platform.starter.context.RestResultContextView;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Unified response context of reactive applications, kept in the Reactor {@link Context} instead of
+ * {@code RestResultHolder}
+ *
+ * <p>The values are also kept as exchange attributes for the exception handlers, which run outside of the web filter
+ * chain and do not see its Reactor context.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class ReactiveRestResultContext {
+
+    public static final String TRACE_ID_KEY = ReactiveRestResultContext.class.getName() + ".TRACE_ID";
+
+    public static final String HOST_KEY = ReactiveRestResultContext.class.getName() + ".HOST";
+
+    public static final String ERROR_SHOW_TYPE_KEY = ReactiveRestResultContext.class.getName() + ".ERROR_SHOW_TYPE";
+
+    /**
+     * Write the context values into a Reactor context
+     *
+     * @param context Reactor context
+     * @param values  context values
+     * @return Reactor context holding the values
+     */
+    public static Context write(Context context, RestResultContextView values) {
+        return context.put(TRACE_ID_KEY, values.getTraceId()).put(HOST_KEY, values.getHost())
+                .put(ERROR_SHOW_TYPE_KEY, values.getErrorShowType());
+    }
+
+    /**
+     * Write the context values into the exchange attributes
+     *
+     * @param exchange exchange
+     * @param values   context values
+     */
+    public static void write(ServerWebExchange exchange, RestResultContextView values) {
+        exchange.getAttributes().put(TRACE_ID_KEY, values.getTraceId());
+        exchange.getAttributes().put(HOST_KEY, values.getHost());
+        exchange.getAttributes().put(ERROR_SHOW_TYPE_KEY, values.getErrorShowType());
+    }
+
+    /**
+     * Read the context values of a Reactor context
+     *
+     * @param context Reactor context
+     * @return context view
+     */
+    public static RestResultContextView read(ContextView context) {
+        return new Values(context.getOrDefault(TRACE_ID_KEY, StrUtil.EMPTY), context.getOrDefault(HOST_KEY,
+                RestResultContext.getDefaultHost()),
+                context.getOrDefault(ERROR_SHOW_TYPE_KEY, RestResultContext.DEFAULT_ERROR_SHOW_TYPE));
+    }
+
+    /**
+     * Read the context values of the exchange attributes
+     *
+     * @param exchange exchange
+     * @return context view
+     */
+    public static RestResultContextView read(ServerWebExchange exchange) {
+        return new Values(exchange.getAttributeOrDefault(TRACE_ID_KEY, StrUtil.EMPTY),
+                exchange.getAttributeOrDefault(HOST_KEY, RestResultContext.getDefaultHost()),
+                exchange.getAttributeOrDefault(ERROR_SHOW_TYPE_KEY, RestResultContext.DEFAULT_ERROR_SHOW_TYPE));
+    }
+
+    /**
+     * Context values of a request
+     *
+     * @param traceId       trace id
+     * @param host          host
+     * @param errorShowType error display type
+     * @return context view
+     */
+    public static RestResultContextView of(String traceId, String host, int errorShowType) {
+        return new Values(traceId, host, errorShowType);
+    }
+
+    private static final class Values implements RestResultContextView {
+
+        private final String traceId;
+
+        private final String host;
+
+        private final int errorShowType;
+
+        Values(String traceId, String host, Integer errorShowType) {
+            this.traceId = traceId == null ? StrUtil.EMPTY : traceId;
+            this.host = host == null ? StrUtil.EMPTY : host;
+            this.errorShowType = errorShowType == null ? RestResultContext.DEFAULT_ERROR_SHOW_TYPE : errorShowType;
+        }
+
+        @Override
+        public String getTraceId() {
+            return traceId;
+        }
+
+        @Override
+        public String getHost() {
+            return host;
+        }
+
+        @Override
+        public int getErrorShowType() {
+            return errorShowType;
+        }
+
+    }
+
+    private ReactiveRestResultContext() {}
+
+}
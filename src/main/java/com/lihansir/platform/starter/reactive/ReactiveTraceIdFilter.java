@@ -0,0 +1,56 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.reactive;
+
+import com.lihansir.platform.starter.context.RestResultContext;
+import com.lihansir.platform.starter.context.RestResultContextView;
+import com.lihansir.platform.starter.context.TraceIdGenerator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Trace id filter of reactive applications, the reactive counterpart of {@code TraceIdFilter}
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class ReactiveTraceIdFilter implements WebFilter {
+
+    private final String headerName;
+
+    private final boolean responseHeader;
+
+    public ReactiveTraceIdFilter(String headerName, boolean responseHeader) {
+        this.headerName = headerName;
+        this.responseHeader = responseHeader;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String traceId = resolveTraceId(exchange.getRequest().getHeaders());
+        if (responseHeader) {
+            exchange.getResponse().getHeaders().set(headerName, traceId);
+        }
+        RestResultContextView values = ReactiveRestResultContext.of(traceId, RestResultContext.getDefaultHost(),
+                RestResultContext.DEFAULT_ERROR_SHOW_TYPE);
+        ReactiveRestResultContext.write(exchange, values);
+        return chain.filter(exchange).contextWrite(context -> ReactiveRestResultContext.write(context, values));
+    }
+
+    private String resolveTraceId(HttpHeaders headers) {
+        String traceId = TraceIdGenerator.fromTraceparent(headers.getFirst(TraceIdGenerator.TRACEPARENT_HEADER));
+        if (traceId != null) {
+            return traceId;
+        }
+        traceId = headers.getFirst(headerName);
+        if (TraceIdGenerator.isValid(traceId)) {
+            return traceId;
+        }
+        return TraceIdGenerator.generate();
+    }
+
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.reactive;
+
+import com.lihansir.platform.common.rest.RestResult;
+import com.lihansir.platform.starter.advice.HandlerDecision;
+import com.lihansir.platform.starter.advice.HandlerWrapRules;
+import com.lihansir.platform.starter.advice.RestResultIndex;
+import com.lihansir.platform.starter.context.RestResultContextView;
+import com.lihansir.platform.starter.converter.StreamingRestResult;
+import com.lihansir.platform.starter.converter.SuccessEnvelope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerResult;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolver;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
+import org.springframework.web.reactive.result.method.RequestMappingInfoHandlerMapping;
+import org.springframework.web.reactive.result.method.annotation.ResponseBodyResultHandler;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unified response wrapping of reactive applications, the reactive counterpart of {@code RestResultHandlerAdvice}
+ *
+ * <p>Handlers selected by {@code @UseRestResult}, {@code @IgnoreRestResult} and the configured wrapping rules, the
+ * same decisions as the servlet advice, have their single value wrapped into a
+ * unified response filled from the Reactor context. The values of a multi-value publisher are encoded into the data
+ * array of a {@link SuccessEnvelope} as they arrive and flushed in chunks.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class RestResultResponseBodyResultHandler extends ResponseBodyResultHandler
+        implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final MethodParameter ENVELOPE_PARAMETER;
+
+    static {
+        Method method = ReflectionUtils.findMethod(RestResultResponseBodyResultHandler.class, "envelopeType");
+        ENVELOPE_PARAMETER = new MethodParameter(Objects.requireNonNull(method), -1);
+    }
+
+    private static final byte[] SEPARATOR = {','};
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Handler method decisions, filled from the request mappings at startup and lazily for anything else
+     */
+    private final ConcurrentMap<Method, HandlerDecision> decisions = new ConcurrentHashMap<>(256);
+
+    /**
+     * Compile-time annotation index
+     */
+    private final RestResultIndex index;
+
+    /**
+     * Configured wrapping rules, folded into the decisions
+     */
+    private final HandlerWrapRules rules;
+
+    /**
+     * Number of values of a multi-value publisher written between two flushes
+     */
+    private final int flushSize;
+
+    private final Encoder<Object> encoder;
+
+    /**
+     * Envelope of the multi-value publishers, encoded by the json encoder
+     */
+    private final SuccessEnvelope envelope;
+
+    public RestResultResponseBodyResultHandler(List<HttpMessageWriter<?>> writers,
+                                               RequestedContentTypeResolver resolver,
+                                               ReactiveAdapterRegistry registry) {
+        this(writers, resolver, registry, StreamingRestResult.DEFAULT_FLUSH_SIZE);
+    }
+
+    public RestResultResponseBodyResultHandler(List<HttpMessageWriter<?>> writers,
+                                               RequestedContentTypeResolver resolver,
+                                               ReactiveAdapterRegistry registry, int flushSize) {
+        this(writers, resolver, registry, flushSize, HandlerWrapRules.NONE);
+    }
+
+    public RestResultResponseBodyResultHandler(List<HttpMessageWriter<?>> writers,
+                                               RequestedContentTypeResolver resolver,
+                                               ReactiveAdapterRegistry registry, int flushSize,
+                                               HandlerWrapRules rules) {
+        super(writers, resolver, registry);
+        setOrder(getOrder() - 1);
+        this.flushSize = Math.max(flushSize, 1);
+        this.encoder = findJsonEncoder(writers);
+        this.envelope = encoder == null ? null : new SuccessEnvelope(this::encode);
+        this.rules = rules;
+        this.index = RestResultIndex.get();
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        Map<Method, MappedHandler> handlers = new HashMap<>(256);
+        for (RequestMappingInfoHandlerMapping mapping : event.getApplicationContext()
+                .getBeansOfType(RequestMappingInfoHandlerMapping.class).values()) {
+            for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : mapping.getHandlerMethods().entrySet()) {
+                handlers.computeIfAbsent(entry.getValue().getMethod(), method -> new MappedHandler(entry.getValue()))
+                        .add(entry.getKey());
+            }
+        }
+        for (Map.Entry<Method, MappedHandler> entry : handlers.entrySet()) {
+            MappedHandler handler = entry.getValue();
+            decisions.put(entry.getKey(), rules.apply(HandlerDecision.of(entry.getKey(), index), handler.beanType,
+                    handler.patterns, handler.mediaTypes));
+        }
+        LOGGER.debug("Unified response decisions precomputed for {} handler methods, {} index entries",
+                decisions.size(), index.size());
+    }
+
+    @Override
+    public boolean supports(HandlerResult result) {
+        if (!(result.getHandler() instanceof HandlerMethod) || !super.supports(result)) {
+            return false;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod)result.getHandler();
+        Method method = handlerMethod.getMethod();
+        HandlerDecision decision = decisions.get(method);
+        if (decision == null) {
+            decision = decisions.computeIfAbsent(method,
+                    key -> rules.apply(HandlerDecision.of(key, index), handlerMethod.getBeanType()));
+        }
+        return decision.isWrap() && !decision.isRestResultReturn();
+    }
+
+    @Override
+    public Mono<Void> handleResult(ServerWebExchange exchange, HandlerResult result) {
+        Object returnValue = result.getReturnValue();
+        ReactiveAdapter adapter = getAdapter(result);
+        Mono<?> body;
+        if (adapter == null) {
+            body = Mono.justOrEmpty(returnValue);
+        } else if (adapter.isMultiValue()) {
+            if (encoder != null) {
+                return writeStreaming(exchange, Flux.from(adapter.toPublisher(returnValue)));
+            }
+            body = Flux.from(adapter.toPublisher(returnValue)).collectList();
+        } else {
+            body = Mono.from(adapter.toPublisher(returnValue));
+        }
+        Mono<RestResult<Object>> envelope = body.<Optional<Object>>map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(data -> Mono.deferContextual(context ->
+                        Mono.just(SuccessEnvelope.succeeded(data.orElse(null),
+                                ReactiveRestResultContext.read(context)))));
+        return writeBody(envelope, ENVELOPE_PARAMETER, exchange);
+    }
+
+    /**
+     * Write the values into the data array chunk by chunk. A failure before the first chunk is left to the exception
+     * handlers, a later one closes the envelope as failed since the response is already committed, or aborts the
+     * response when the failed envelope can not follow the header already written
+     */
+    private Mono<Void> writeStreaming(ServerWebExchange exchange, Flux<?> values) {
+        ServerHttpResponse response = exchange.getResponse();
+        DataBufferFactory bufferFactory = response.bufferFactory();
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return Mono.deferContextual(context -> {
+            RestResultContextView view = ReactiveRestResultContext.read(context);
+            AtomicBoolean started = new AtomicBoolean();
+            Flux<DataBuffer> chunks = values.buffer(flushSize)
+                    .map(chunk -> encodeChunk(bufferFactory, chunk, view, !started.getAndSet(true)))
+                    .concatWith(Mono.fromSupplier(() -> bufferFactory.wrap(trailer(started.getAndSet(true), view))))
+                    .onErrorResume(e -> {
+                        if (!started.get()) {
+                            return Mono.error(e);
+                        }
+                        LOGGER.error("Streaming response failed, TraceId：【{}】", view.getTraceId(), e);
+                        byte[] trailer = envelope.failedTrailer(view);
+                        return trailer == null ? Mono.error(e) : Mono.just(bufferFactory.wrap(trailer));
+                    });
+            return response.writeAndFlushWith(chunks.map(Mono::just));
+        });
+    }
+
+    private DataBuffer encodeChunk(DataBufferFactory bufferFactory, List<?> chunk, RestResultContextView view,
+                                   boolean first) {
+        List<DataBuffer> buffers = new ArrayList<>(chunk.size() * 2);
+        buffers.add(bufferFactory.wrap(first ? envelope.header(view) : SEPARATOR));
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) {
+                buffers.add(bufferFactory.wrap(SEPARATOR));
+            }
+            Object value = chunk.get(i);
+            buffers.add(value == null ? bufferFactory.wrap(NULL) : encoder.encodeValue(value, bufferFactory,
+                    ResolvableType.forInstance(value), MediaType.APPLICATION_JSON, Collections.emptyMap()));
+        }
+        return bufferFactory.join(buffers);
+    }
+
+    private byte[] encode(Object value) {
+        DataBuffer buffer = encoder.encodeValue(value, DefaultDataBufferFactory.sharedInstance,
+                ResolvableType.forInstance(value), MediaType.APPLICATION_JSON, Collections.emptyMap());
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        return bytes;
+    }
+
+    /**
+     * Trailer of the envelope, preceded by the header when the publisher completed without values
+     */
+    private byte[] trailer(boolean started, RestResultContextView view) {
+        byte[] trailer = envelope.trailer(view);
+        if (started) {
+            return trailer;
+        }
+        byte[] header = envelope.header(view);
+        byte[] bytes = new byte[header.length + trailer.length];
+        System.arraycopy(header, 0, bytes, 0, header.length);
+        System.arraycopy(trailer, 0, bytes, header.length, trailer.length);
+        return bytes;
+    }
+
+    /**
+     * Json encoder of the configured writers, used to encode the values the same way as a buffered envelope
+     */
+    @SuppressWarnings("unchecked")
+    private static Encoder<Object> findJsonEncoder(List<HttpMessageWriter<?>> writers) {
+        ResolvableType envelopeType = ResolvableType.forClass(RestResult.class);
+        for (HttpMessageWriter<?> writer : writers) {
+            if (writer instanceof EncoderHttpMessageWriter
+                    && writer.canWrite(envelopeType, MediaType.APPLICATION_JSON)) {
+                return (Encoder<Object>)((EncoderHttpMessageWriter<?>)writer).getEncoder();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Request mappings of a handler method, merged across the handler mappings
+     */
+    private static final class MappedHandler {
+
+        private final Class<?> beanType;
+
+        private final Set<String> patterns = new LinkedHashSet<>();
+
+        private final Set<MediaType> mediaTypes = new LinkedHashSet<>();
+
+        MappedHandler(HandlerMethod handlerMethod) {
+            this.beanType = handlerMethod.getBeanType();
+        }
+
+        void add(RequestMappingInfo info) {
+            for (PathPattern pattern : info.getPatternsCondition().getPatterns()) {
+                patterns.add(pattern.getPatternString());
+            }
+            mediaTypes.addAll(info.getProducesCondition().getProducibleMediaTypes());
+        }
+
+    }
+
+    /**
+     * Only declares the body type written by this handler
+     *
+     * @return nothing
+     */
+    @SuppressWarnings("unused")
+    private static Mono<RestResult<Object>> envelopeType() {
+        return null;
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.resolver;
+
+import com.lihansir.platform.starter.converter.EncodedRestResult;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.View;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * View writing a pre-encoded unified response
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class EncodedRestResultView implements View {
+
+    /**
+     * Model attribute holding the {@link EncodedRestResult}
+     */
+    public static final String RESULT_ATTRIBUTE = "restResult";
+
+    @Override
+    public String getContentType() {
+        return MediaType.APPLICATION_JSON_VALUE;
+    }
+
+    @Override
+    public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response)
+            throws Exception {
+        EncodedRestResult result = (EncodedRestResult)model.get(RESULT_ATTRIBUTE);
+        byte[] bytes = result.toBytes();
+        response.setContentType(getContentType());
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+    }
+
+}
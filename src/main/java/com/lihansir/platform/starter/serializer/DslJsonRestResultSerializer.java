@@ -0,0 +1,62 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.serializer;
+
+import com.dslplatform.json.DslJson;
+import com.dslplatform.json.JsonWriter;
+import com.dslplatform.json.runtime.Settings;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * DSL-JSON serializer, each thread reuses one writer whose buffer is flushed straight into the stream
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class DslJsonRestResultSerializer implements RestResultSerializer {
+
+    private final DslJson<Object> dslJson;
+
+    private final ThreadLocal<JsonWriter> writers;
+
+    public DslJsonRestResultSerializer() {
+        this(new DslJson<>(Settings.withRuntime().includeServiceLoader()));
+    }
+
+    public DslJsonRestResultSerializer(DslJson<Object> dslJson) {
+        this.dslJson = dslJson;
+        this.writers = ThreadLocal.withInitial(dslJson::newWriter);
+    }
+
+    @Override
+    public long write(Object value, OutputStream out) throws IOException {
+        JsonWriter writer = writers.get();
+        writer.reset(out);
+        try {
+            dslJson.serialize(writer, value);
+            writer.flush();
+            return writer.flushed();
+        } finally {
+            writer.reset();
+        }
+    }
+
+    @Override
+    public byte[] toBytes(Object value) {
+        JsonWriter writer = writers.get();
+        writer.reset();
+        try {
+            dslJson.serialize(writer, value);
+            return writer.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.reset();
+        }
+    }
+
+}
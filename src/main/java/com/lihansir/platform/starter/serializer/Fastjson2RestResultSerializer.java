@@ -0,0 +1,28 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.serializer;
+
+import com.alibaba.fastjson2.JSON;
+
+import java.io.OutputStream;
+
+/**
+ * Fastjson2 serializer, encodes UTF-8 bytes directly without an intermediate string
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class Fastjson2RestResultSerializer implements RestResultSerializer {
+
+    @Override
+    public long write(Object value, OutputStream out) {
+        return JSON.writeTo(out, value);
+    }
+
+    @Override
+    public byte[] toBytes(Object value) {
+        return JSON.toJSONBytes(value);
+    }
+
+}
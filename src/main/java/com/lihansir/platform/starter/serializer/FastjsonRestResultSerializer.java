@@ -0,0 +1,43 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.serializer;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializeConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fastjson serializer, encodes through the thread local buffers of fastjson. In a native image the bean serializers
+ * are reflective, as the ASM generated ones can not be loaded there
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class FastjsonRestResultSerializer implements RestResultSerializer {
+
+    private final SerializeConfig config;
+
+    public FastjsonRestResultSerializer() {
+        this(RestResultSerializers.isNativeImage() ? new SerializeConfig(false) : SerializeConfig.getGlobalInstance());
+    }
+
+    public FastjsonRestResultSerializer(SerializeConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public long write(Object value, OutputStream out) throws IOException {
+        return JSON.writeJSONString(out, StandardCharsets.UTF_8, value, config, null, null,
+                JSON.DEFAULT_GENERATE_FEATURE);
+    }
+
+    @Override
+    public byte[] toBytes(Object value) {
+        return JSON.toJSONBytes(value, config);
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.util.ClassUtils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Jackson serializer, writing through the UTF-8 generator of the application ObjectMapper
+ *
+ * <p>A copy of the mapper gets the blackbird or afterburner module when one is on the classpath, the application
+ * mapper itself is left untouched. Both generate code at runtime, so they are not used in a native image.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class JacksonRestResultSerializer implements RestResultSerializer {
+
+    private static final String[] OPTIMIZER_MODULES = {"com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+        "com.fasterxml.jackson.module.afterburner.AfterburnerModule"};
+
+    private final ObjectWriter writer;
+
+    public JacksonRestResultSerializer(ObjectMapper objectMapper) {
+        this.writer = optimize(objectMapper).writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Serializer of the application ObjectMapper, or of a default one
+     *
+     * @param beanFactory bean factory, may be null
+     * @return serializer
+     */
+    static JacksonRestResultSerializer of(BeanFactory beanFactory) {
+        ObjectMapper objectMapper = beanFactory == null ? null
+                : beanFactory.getBeanProvider(ObjectMapper.class).getIfUnique();
+        return new JacksonRestResultSerializer(objectMapper == null ? new ObjectMapper() : objectMapper);
+    }
+
+    @Override
+    public long write(Object value, OutputStream out) throws IOException {
+        CountingOutputStream counting = new CountingOutputStream(out);
+        writer.writeValue(counting, value);
+        return counting.count;
+    }
+
+    @Override
+    public byte[] toBytes(Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ObjectMapper optimize(ObjectMapper objectMapper) {
+        if (RestResultSerializers.isNativeImage()) {
+            return objectMapper;
+        }
+        ClassLoader classLoader = JacksonRestResultSerializer.class.getClassLoader();
+        for (String moduleClass : OPTIMIZER_MODULES) {
+            if (!ClassUtils.isPresent(moduleClass, classLoader)) {
+                continue;
+            }
+            if (objectMapper.getRegisteredModuleIds().contains(moduleClass)) {
+                return objectMapper;
+            }
+            Module module = (Module)BeanUtils.instantiateClass(ClassUtils.resolveClassName(moduleClass, classLoader));
+            return objectMapper.copy().registerModule(module);
+        }
+        return objectMapper;
+    }
+
+    /**
+     * Counts the bytes passed through, writing arrays in one call
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() {}
+
+    }
+
+}
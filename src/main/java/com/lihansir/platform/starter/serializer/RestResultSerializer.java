@@ -0,0 +1,47 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Json serializer of the unified responses written by the starter itself
+ *
+ * <p>Implementations write UTF-8 bytes straight into the given stream and leave it open.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public interface RestResultSerializer {
+
+    /**
+     * Write a value as UTF-8 json
+     *
+     * @param value value
+     * @param out   output stream, not closed
+     * @return number of bytes written
+     * @throws IOException in case of I/O errors
+     */
+    long write(Object value, OutputStream out) throws IOException;
+
+    /**
+     * Encode a value as UTF-8 json
+     *
+     * @param value value
+     * @return UTF-8 json
+     */
+    default byte[] toBytes(Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try {
+            write(value, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.serializer;
+
+import org.springframework.beans.factory.BeanFactory;
+
+/**
+ * Holder of the serializer used by the starter, set once by the auto-configuration
+ *
+ * <p>Without a Spring context the first available library is used with its default settings.</p>
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class RestResultSerializers {
+
+    /**
+     * Set by GraalVM while building and running a native image, where no bytecode can be generated at runtime
+     */
+    private static final boolean NATIVE_IMAGE = System.getProperty("org.graalvm.nativeimage.imagecode") != null;
+
+    private static volatile RestResultSerializer serializer;
+
+    /**
+     * The serializer in use
+     *
+     * @return serializer
+     */
+    public static RestResultSerializer get() {
+        RestResultSerializer current = serializer;
+        if (current == null) {
+            synchronized (RestResultSerializers.class) {
+                if (serializer == null) {
+                    serializer = create(SerializerType.AUTO, null);
+                }
+                current = serializer;
+            }
+        }
+        return current;
+    }
+
+    public static void set(RestResultSerializer serializer) {
+        RestResultSerializers.serializer = serializer;
+    }
+
+    /**
+     * Create the serializer of a library
+     *
+     * @param type        library, AUTO picks the first available one
+     * @param beanFactory bean factory providing the application ObjectMapper, may be null
+     * @return serializer
+     */
+    public static RestResultSerializer create(SerializerType type, BeanFactory beanFactory) {
+        switch (type.resolve()) {
+            case JACKSON:
+                return JacksonRestResultSerializer.of(beanFactory);
+            case FASTJSON2:
+                return new Fastjson2RestResultSerializer();
+            case FASTJSON:
+                return new FastjsonRestResultSerializer();
+            default:
+                return new DslJsonRestResultSerializer();
+        }
+    }
+
+    /**
+     * Whether the code runs in a native image
+     *
+     * @return true in a native image
+     */
+    static boolean isNativeImage() {
+        return NATIVE_IMAGE;
+    }
+
+    private RestResultSerializers() {}
+
+}
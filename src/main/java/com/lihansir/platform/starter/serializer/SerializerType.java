@@ -0,0 +1,73 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.serializer;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Json library backing the {@link RestResultSerializer}
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public enum SerializerType {
+
+    /**
+     * First library found on the classpath, in the order of the constants below. Jackson comes first, so the
+     * responses of the starter look like the ones of the application converters
+     */
+    AUTO(null),
+
+    /**
+     * Jackson, using the application ObjectMapper when there is one
+     */
+    JACKSON("com.fasterxml.jackson.databind.ObjectMapper"),
+
+    FASTJSON2("com.alibaba.fastjson2.JSON"),
+
+    FASTJSON("com.alibaba.fastjson.JSON"),
+
+    /**
+     * DSL-JSON with runtime analysis, requires dsl-json-java8
+     */
+    DSL_JSON("com.dslplatform.json.runtime.Settings");
+
+    private final String markerClass;
+
+    SerializerType(String markerClass) {
+        this.markerClass = markerClass;
+    }
+
+    /**
+     * Whether the library is on the classpath
+     *
+     * @return true if available
+     */
+    public boolean isAvailable() {
+        return markerClass != null && ClassUtils.isPresent(markerClass, SerializerType.class.getClassLoader());
+    }
+
+    /**
+     * The library to use for this type, AUTO resolved to the first available one
+     *
+     * @return concrete type
+     */
+    public SerializerType resolve() {
+        if (this != AUTO) {
+            if (!isAvailable()) {
+                throw new IllegalStateException("Serializer " + this + " requires " + markerClass
+                        + " on the classpath");
+            }
+            return this;
+        }
+        for (SerializerType type : values()) {
+            if (type.isAvailable()) {
+                return type;
+            }
+        }
+        throw new IllegalStateException("No json library found for the unified response, add jackson-databind, "
+                + "fastjson2, fastjson or dsl-json-java8");
+    }
+
+}
@@ -2,6 +2,7 @@ package com.lihansir.platform.starter.utils;
 
 import cn.hutool.core.util.StrUtil;
 import com.lihansir.platform.common.rest.RestResult;
+import com.lihansir.platform.starter.context.RestResultContextView;
 import com.lihansir.platform.starter.context.RestResultHolder;
 import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -30,20 +31,40 @@ public class CommonUtil {
     }
 
     public static String getBaseRequestUrl(HttpServletRequest request) {
+        return appendBaseRequestUrl(request, new StringBuilder(64)).toString();
+    }
+
+    /**
+     * Append the scheme, server name and port the client used. The server name is the one of the Host header, unlike
+     * the remote host it is the host of the url and never needs a reverse lookup of the client address
+     *
+     * <p>Forwarded headers are not read here, they are trusted only when {@code server.forward-headers-strategy} is
+     * {@code native} or {@code framework}, whose {@code ForwardedHeaderFilter} rewrites the scheme, server name and
+     * port of the request.</p>
+     *
+     * @param request request
+     * @param builder builder to append to
+     * @return the builder
+     */
+    public static StringBuilder appendBaseRequestUrl(HttpServletRequest request, StringBuilder builder) {
         String scheme = request.getScheme();
-        String host = request.getRemoteHost();
-        String port = String.valueOf(request.getServerPort());
-        String url = scheme + "://" + host;
-        if (StrUtil.isNotBlank(port) && !"80".equals(port) && !"443".equals(port)) {
-            url = url + ":" + port;
+        int port = request.getServerPort();
+        builder.append(scheme).append("://").append(request.getServerName());
+        if (port > 0 && !isDefaultPort(scheme, port)) {
+            builder.append(':').append(port);
         }
-        return url;
+        return builder;
+    }
+
+    private static boolean isDefaultPort(String scheme, int port) {
+        return (port == 80 && "http".equalsIgnoreCase(scheme)) || (port == 443 && "https".equalsIgnoreCase(scheme));
     }
 
     public static RestResult<Object> formatRestResult(RestResult<Object> result) {
-        result.setTraceId(RestResultHolder.getTraceId());
-        result.setHost(RestResultHolder.getHost());
-        result.setShowType(RestResultHolder.getErrorShowType());
+        RestResultContextView context = RestResultHolder.current();
+        result.setTraceId(context.getTraceId());
+        result.setHost(context.getHost());
+        result.setShowType(context.getErrorShowType());
         return result;
     }
 
@@ -0,0 +1,39 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.utils;
+
+/**
+ * Source of the host reported in the unified response
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public enum HostSource {
+
+    /**
+     * No host unless a request sets one
+     */
+    NONE,
+
+    /**
+     * Host name of the node
+     */
+    HOSTNAME,
+
+    /**
+     * First non-loopback address of the node
+     */
+    IP,
+
+    /**
+     * Environment variable, such as the pod name exposed by the downward API
+     */
+    ENV,
+
+    /**
+     * Configured value
+     */
+    VALUE
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.utils;
+
+import cn.hutool.core.util.StrUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.util.Enumeration;
+
+/**
+ * Resolution of the node host, done once at startup as it may wait on name resolution
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+public class HostUtil {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HostUtil.class);
+
+    /**
+     * Resolve the host of the node
+     *
+     * @param source  source of the host
+     * @param envName environment variable read by {@link HostSource#ENV}
+     * @param value   value used by {@link HostSource#VALUE}
+     * @return host, empty when it can not be resolved
+     */
+    public static String resolve(HostSource source, String envName, String value) {
+        switch (source) {
+            case HOSTNAME:
+                return hostName();
+            case IP:
+                return address();
+            case ENV:
+                String host = envName == null ? null : System.getenv(envName);
+                return StrUtil.isBlank(host) ? hostName() : host.trim();
+            case VALUE:
+                return value == null ? StrUtil.EMPTY : value;
+            default:
+                return StrUtil.EMPTY;
+        }
+    }
+
+    /**
+     * Host name from the environment when set there, so no lookup is needed, from the local address otherwise
+     */
+    private static String hostName() {
+        String host = System.getenv("HOSTNAME");
+        if (StrUtil.isBlank(host)) {
+            host = System.getenv("COMPUTERNAME");
+        }
+        if (StrUtil.isNotBlank(host)) {
+            return host.trim();
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            LOGGER.warn("Host name of the node could not be resolved：【{}】", e.toString());
+            return StrUtil.EMPTY;
+        }
+    }
+
+    /**
+     * First site local IPv4 address of an interface that is up, then any other IPv4 address, then any address
+     */
+    private static String address() {
+        InetAddress candidate = null;
+        try {
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            while (interfaces != null && interfaces.hasMoreElements()) {
+                NetworkInterface networkInterface = interfaces.nextElement();
+                if (!networkInterface.isUp() || networkInterface.isLoopback() || networkInterface.isVirtual()) {
+                    continue;
+                }
+                Enumeration<InetAddress> addresses = networkInterface.getInetAddresses();
+                while (addresses.hasMoreElements()) {
+                    InetAddress address = addresses.nextElement();
+                    if (address.isLoopbackAddress() || address.isLinkLocalAddress()) {
+                        continue;
+                    }
+                    if (address instanceof Inet4Address && address.isSiteLocalAddress()) {
+                        return address.getHostAddress();
+                    }
+                    if (candidate == null || (address instanceof Inet4Address && !(candidate instanceof Inet4Address))) {
+                        candidate = address;
+                    }
+                }
+            }
+            return candidate != null ? candidate.getHostAddress() : InetAddress.getLocalHost().getHostAddress();
+        } catch (IOException e) {
+            LOGGER.warn("Address of the node could not be resolved：【{}】", e.toString());
+            return StrUtil.EMPTY;
+        }
+    }
+
+    private HostUtil() {}
+
+}
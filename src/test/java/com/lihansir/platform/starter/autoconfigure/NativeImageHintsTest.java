@@ -0,0 +1,133 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.autoconfigure;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import com.lihansir.platform.starter.annotation.EnableRestResult;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Completeness of the reflection hints shipped for native images
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+class NativeImageHintsTest {
+
+    private static final String PACKAGE = "com.lihansir.platform.starter.";
+
+    private static final String REFLECT_CONFIG =
+            "META-INF/native-image/com.lihansir.platform/lihansir-spring-boot-starter/reflect-config.json";
+
+    @Test
+    void everyHintedClassLoads() throws IOException {
+        List<String> missing = new ArrayList<>();
+        for (String name : hintedClasses()) {
+            try {
+                Class.forName(name, false, getClass().getClassLoader());
+            } catch (ClassNotFoundException | LinkageError e) {
+                missing.add(name);
+            }
+        }
+        assertTrue(missing.isEmpty(), "Hinted classes not found: " + missing);
+    }
+
+    @Test
+    void everyConfigurationIsHinted() throws Exception {
+        Set<String> hinted = hintedClasses();
+        Set<String> missing = new TreeSet<>();
+        for (Class<?> type : configurationClasses()) {
+            if (!hinted.contains(type.getName())) {
+                missing.add(type.getName());
+            }
+        }
+        assertEquals(new TreeSet<>(), missing, "Configuration classes missing from " + REFLECT_CONFIG);
+    }
+
+    /**
+     * The auto-configurations of {@code spring.factories} and everything they reach: imports, nested configurations,
+     * conditions and bound properties, the framework ones hinted by the framework itself
+     */
+    private static Set<Class<?>> configurationClasses() throws ClassNotFoundException {
+        ClassLoader classLoader = NativeImageHintsTest.class.getClassLoader();
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (String name : SpringFactoriesLoader.loadFactoryNames(EnableAutoConfiguration.class, classLoader)) {
+            if (name.startsWith(PACKAGE)) {
+                addConfiguration(Class.forName(name, false, classLoader), types);
+            }
+        }
+        // imported by the application through the enable annotation
+        addImports(EnableRestResult.class, types);
+        assertTrue(types.contains(RestResultAutoConfiguration.class), "Auto-configurations not found");
+        return types;
+    }
+
+    private static void addConfiguration(Class<?> type, Set<Class<?>> types) {
+        if (!types.add(type)) {
+            return;
+        }
+        addImports(type, types);
+        MergedAnnotations annotations = MergedAnnotations.from(type, SearchStrategy.DIRECT);
+        annotations.stream(Conditional.class).flatMap(conditional -> Arrays.stream(conditional.getClassArray("value")))
+                .filter(condition -> condition.getName().startsWith(PACKAGE)).forEach(types::add);
+        annotations.stream(EnableConfigurationProperties.class)
+                .flatMap(enable -> Arrays.stream(enable.getClassArray("value")))
+                .forEach(properties -> addWithNested(properties, types));
+        for (Class<?> nested : type.getDeclaredClasses()) {
+            if (nested.isAnnotationPresent(Configuration.class)) {
+                addConfiguration(nested, types);
+            }
+        }
+    }
+
+    private static void addImports(Class<?> type, Set<Class<?>> types) {
+        MergedAnnotations.from(type, SearchStrategy.DIRECT).stream(Import.class)
+                .flatMap(imports -> Arrays.stream(imports.getClassArray("value")))
+                .filter(imported -> imported.getName().startsWith(PACKAGE)).forEach(imported -> addConfiguration(imported, types));
+    }
+
+    /**
+     * Property groups are bound reflectively as well
+     */
+    private static void addWithNested(Class<?> type, Set<Class<?>> types) {
+        types.add(type);
+        for (Class<?> nested : type.getDeclaredClasses()) {
+            addWithNested(nested, types);
+        }
+    }
+
+    private static Set<String> hintedClasses() throws IOException {
+        Set<String> names = new LinkedHashSet<>();
+        try (InputStream in = NativeImageHintsTest.class.getClassLoader().getResourceAsStream(REFLECT_CONFIG)) {
+            assertNotNull(in, REFLECT_CONFIG);
+            for (JsonNode entry : new ObjectMapper().readTree(in)) {
+                names.add(entry.get("name").asText());
+            }
+        }
+        return names;
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.autoconfigure;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lihansir.platform.starter.context.RestResultContextMode;
+import com.lihansir.platform.starter.context.RestResultHolder;
+import com.lihansir.platform.starter.serializer.JacksonRestResultSerializer;
+import com.lihansir.platform.starter.serializer.RestResultSerializer;
+import com.lihansir.platform.starter.serializer.RestResultSerializers;
+import com.lihansir.platform.starter.utils.HostSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Process wide settings applied on startup and restored on close
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+class RestResultStaticInitializerTest {
+
+    @Test
+    void settingsAreRestoredWhenTheContextCloses() throws Exception {
+        RestResultProperties properties = new RestResultProperties();
+        properties.getContext().setMode(RestResultContextMode.SNAPSHOT);
+        properties.getHost().setSource(HostSource.VALUE);
+        properties.getHost().setValue("node-1");
+        RestResultSerializer serializer = new JacksonRestResultSerializer(new ObjectMapper());
+        RestResultStaticInitializer initializer = new RestResultStaticInitializer(properties, () -> serializer);
+
+        initializer.afterPropertiesSet();
+        assertEquals(RestResultContextMode.SNAPSHOT, RestResultHolder.getMode());
+        assertEquals("node-1", RestResultHolder.getHost());
+        assertSame(serializer, RestResultSerializers.get());
+
+        initializer.destroy();
+        assertEquals(RestResultContextMode.THREAD_LOCAL, RestResultHolder.getMode());
+        assertEquals("", RestResultHolder.getHost());
+        assertNotSame(serializer, RestResultSerializers.get());
+    }
+
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.breaker;
+
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import com.lihansir.platform.starter.context.RestResultHolder;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * State transitions of the circuit breaker, driven by a manual clock and an in-memory shared store
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+class RestResultCircuitBreakerTest {
+
+    private final ManualClock clock = new ManualClock();
+
+    private final InMemoryStore store = new InMemoryStore();
+
+    @Test
+    void closedOpenHalfOpenClosed() throws Exception {
+        RestResultCircuitBreaker breaker = new RestResultCircuitBreaker(properties(), store, clock);
+        RestResultCircuitBreaker.Endpoint endpoint = breaker.endpoint(handler());
+
+        failRequests(breaker, endpoint, 4, 2);
+        breaker.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.OPEN, endpoint.getState());
+        assertFalse(breaker.tryAcquire(endpoint));
+        assertEquals(1, breaker.getShortCircuitedCount());
+        assertEquals("E1", breaker.shortCircuit(endpoint, RestResultHolder.current()).getErrorCode());
+        assertEquals(5, breaker.retryAfterSeconds(endpoint));
+
+        clock.advance(Duration.ofSeconds(4));
+        breaker.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.OPEN, endpoint.getState());
+
+        clock.advance(Duration.ofSeconds(1));
+        breaker.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.HALF_OPEN, endpoint.getState());
+        assertTrue(breaker.tryAcquire(endpoint));
+        assertTrue(breaker.tryAcquire(endpoint));
+        assertFalse(breaker.tryAcquire(endpoint), "Only the probes go through");
+
+        breaker.recordCompletion(endpoint);
+        breaker.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.HALF_OPEN, endpoint.getState(), "A probe still in flight");
+
+        breaker.recordCompletion(endpoint);
+        breaker.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.CLOSED, endpoint.getState());
+
+        breaker.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.CLOSED, endpoint.getState(),
+                "The errors counted before the breaker went half-open are ignored");
+    }
+
+    @Test
+    void failedProbeReopens() throws Exception {
+        RestResultCircuitBreaker breaker = new RestResultCircuitBreaker(properties(), store, clock);
+        RestResultCircuitBreaker.Endpoint endpoint = breaker.endpoint(handler());
+
+        failRequests(breaker, endpoint, 4, 4);
+        breaker.evaluate();
+        clock.advance(Duration.ofSeconds(5));
+        breaker.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.HALF_OPEN, endpoint.getState());
+
+        failRequests(breaker, endpoint, 1, 1);
+        breaker.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.OPEN, endpoint.getState());
+    }
+
+    @Test
+    void probesSpanningMoreThanOneWindowClose() throws Exception {
+        RestResultCircuitBreaker breaker = new RestResultCircuitBreaker(properties(), store, clock);
+        RestResultCircuitBreaker.Endpoint endpoint = breaker.endpoint(handler());
+
+        failRequests(breaker, endpoint, 4, 4);
+        breaker.evaluate();
+        clock.advance(Duration.ofSeconds(5));
+        breaker.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.HALF_OPEN, endpoint.getState());
+
+        failRequests(breaker, endpoint, 1, 0);
+        clock.advance(Duration.ofSeconds(4));
+        breaker.evaluate();
+        clock.advance(Duration.ofSeconds(11));
+        failRequests(breaker, endpoint, 1, 0);
+        breaker.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.CLOSED, endpoint.getState(),
+                "Probes counted although the first one left the window");
+    }
+
+    @Test
+    void unfinishedProbesAreHandedOutAgain() throws Exception {
+        RestResultCircuitBreaker breaker = new RestResultCircuitBreaker(properties(), store, clock);
+        RestResultCircuitBreaker.Endpoint endpoint = breaker.endpoint(handler());
+
+        failRequests(breaker, endpoint, 4, 4);
+        breaker.evaluate();
+        clock.advance(Duration.ofSeconds(5));
+        breaker.evaluate();
+        assertTrue(breaker.tryAcquire(endpoint));
+        assertTrue(breaker.tryAcquire(endpoint));
+        assertFalse(breaker.tryAcquire(endpoint));
+
+        clock.advance(Duration.ofSeconds(4));
+        breaker.evaluate();
+        assertFalse(breaker.tryAcquire(endpoint), "Probes still in flight");
+
+        clock.advance(Duration.ofSeconds(1));
+        breaker.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.HALF_OPEN, endpoint.getState());
+        failRequests(breaker, endpoint, 2, 0);
+        breaker.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.CLOSED, endpoint.getState());
+    }
+
+    @Test
+    void belowMinimumRequestsStaysClosed() throws Exception {
+        RestResultCircuitBreaker breaker = new RestResultCircuitBreaker(properties(), store, clock);
+        RestResultCircuitBreaker.Endpoint endpoint = breaker.endpoint(handler());
+
+        failRequests(breaker, endpoint, 3, 3);
+        breaker.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.CLOSED, endpoint.getState());
+    }
+
+    @Test
+    void errorsOfEveryNodeAreShared() throws Exception {
+        RestResultCircuitBreaker first = new RestResultCircuitBreaker(properties(), store, clock);
+        RestResultCircuitBreaker second = new RestResultCircuitBreaker(properties(), store, clock);
+        RestResultCircuitBreaker.Endpoint firstEndpoint = first.endpoint(handler());
+        RestResultCircuitBreaker.Endpoint secondEndpoint = second.endpoint(handler());
+
+        failRequests(first, firstEndpoint, 2, 1);
+        failRequests(second, secondEndpoint, 2, 1);
+        first.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.CLOSED, firstEndpoint.getState());
+        second.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.OPEN, secondEndpoint.getState());
+        first.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.OPEN, firstEndpoint.getState());
+    }
+
+    @Test
+    void localCountersWhenTheStoreFails() throws Exception {
+        RestResultCircuitBreakerStore failing = new RestResultCircuitBreakerStore() {
+            @Override
+            public List<Map<String, Long>> exchange(Map<Long, Map<String, Long>> counts, long firstBucket,
+                                                    long lastBucket, Duration ttl) {
+                throw new IllegalStateException("store down");
+            }
+        };
+        RestResultCircuitBreaker breaker = new RestResultCircuitBreaker(properties(), failing, clock);
+        RestResultCircuitBreaker.Endpoint endpoint = breaker.endpoint(handler());
+
+        failRequests(breaker, endpoint, 4, 2);
+        breaker.evaluate();
+        assertEquals(RestResultCircuitBreaker.State.OPEN, endpoint.getState());
+    }
+
+    private static RestResultProperties.CircuitBreaker properties() {
+        RestResultProperties.CircuitBreaker properties = new RestResultProperties.CircuitBreaker();
+        properties.setWindow(Duration.ofSeconds(10));
+        properties.setBuckets(10);
+        properties.setMinimumRequests(4);
+        properties.setErrorRateThreshold(0.5);
+        properties.setErrorCodes(Collections.emptyList());
+        properties.setOpenDuration(Duration.ofSeconds(5));
+        properties.setHalfOpenRequests(2);
+        return properties;
+    }
+
+    private static void failRequests(RestResultCircuitBreaker breaker, RestResultCircuitBreaker.Endpoint endpoint,
+                                     int requests, int errors) {
+        for (int i = 0; i < requests; i++) {
+            assertTrue(breaker.tryAcquire(endpoint));
+            if (i < errors) {
+                breaker.recordError(endpoint, "E1");
+            }
+            breaker.recordCompletion(endpoint);
+        }
+    }
+
+    private static Method handler() throws NoSuchMethodException {
+        return RestResultCircuitBreakerTest.class.getDeclaredMethod("handler");
+    }
+
+    /**
+     * Store keeping the counters of every node in memory, as the redis store does
+     */
+    private static final class InMemoryStore implements RestResultCircuitBreakerStore {
+
+        private final Map<Long, Map<String, Long>> buckets = new HashMap<>();
+
+        @Override
+        public synchronized List<Map<String, Long>> exchange(Map<Long, Map<String, Long>> counts, long firstBucket,
+                                                             long lastBucket, Duration ttl) {
+            for (Map.Entry<Long, Map<String, Long>> bucket : counts.entrySet()) {
+                Map<String, Long> fields = buckets.computeIfAbsent(bucket.getKey(), key -> new HashMap<>());
+                bucket.getValue().forEach((field, count) -> fields.merge(field, count, Long::sum));
+            }
+            List<Map<String, Long>> window = new ArrayList<>();
+            for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+                window.add(new HashMap<>(buckets.getOrDefault(bucket, Collections.emptyMap())));
+            }
+            return window;
+        }
+
+    }
+
+    private static final class ManualClock extends Clock {
+
+        private long millis = 1_000_000L;
+
+        void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.cache;
+
+import com.lihansir.platform.starter.annotation.CachedRestResult;
+import com.lihansir.platform.starter.annotation.UseRestResult;
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hits, misses and authenticated requests of the response cache interceptor
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+class RestResultCacheInterceptorTest {
+
+    private static final byte[] DATA = "[1,2,3]".getBytes(StandardCharsets.UTF_8);
+
+    private final RestResultCacheInterceptor interceptor = new RestResultCacheInterceptor(
+            new RestResultCache(new RestResultProperties.Cache(), RestResultCacheStore.NONE));
+
+    @Test
+    void completedLoadIsServed() throws Exception {
+        HandlerMethod handler = handler("products");
+        MockHttpServletRequest miss = request();
+        assertTrue(interceptor.preHandle(miss, new MockHttpServletResponse(), handler));
+        RestResultCache.Load load = RestResultCacheInterceptor.takeLoad(miss);
+        assertNotNull(load);
+        load.complete(DATA);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request(), response, handler));
+        assertTrue(response.getContentAsString().contains("[1,2,3]"), response.getContentAsString());
+    }
+
+    @Test
+    void authenticatedRequestsBypassTheCache() throws Exception {
+        HandlerMethod handler = handler("products");
+        cache(handler, request());
+
+        MockHttpServletRequest authorized = request();
+        authorized.addHeader(HttpHeaders.AUTHORIZATION, "Bearer alice");
+        assertTrue(interceptor.preHandle(authorized, new MockHttpServletResponse(), handler));
+        assertNull(RestResultCacheInterceptor.takeLoad(authorized), "Not cached");
+
+        MockHttpServletRequest principal = request();
+        principal.setUserPrincipal(() -> "alice");
+        assertTrue(interceptor.preHandle(principal, new MockHttpServletResponse(), handler));
+        assertNull(RestResultCacheInterceptor.takeLoad(principal), "Not cached");
+    }
+
+    @Test
+    void authenticatedRequestsAreCachedPerCredentialWhenAllowed() throws Exception {
+        HandlerMethod handler = handler("orders");
+        MockHttpServletRequest alice = request();
+        alice.addHeader(HttpHeaders.AUTHORIZATION, "Bearer alice");
+        cache(handler, alice);
+
+        MockHttpServletRequest bob = request();
+        bob.addHeader(HttpHeaders.AUTHORIZATION, "Bearer bob");
+        assertTrue(interceptor.preHandle(bob, new MockHttpServletResponse(), handler), "Not served alice's data");
+        assertNotNull(RestResultCacheInterceptor.takeLoad(bob));
+
+        MockHttpServletRequest anonymous = request();
+        assertTrue(interceptor.preHandle(anonymous, new MockHttpServletResponse(), handler),
+                "Not served to an anonymous request");
+        RestResultCacheInterceptor.takeLoad(anonymous).abandon();
+
+        MockHttpServletRequest again = request();
+        again.addHeader(HttpHeaders.AUTHORIZATION, "Bearer alice");
+        assertFalse(interceptor.preHandle(again, new MockHttpServletResponse(), handler));
+    }
+
+    private void cache(HandlerMethod handler, MockHttpServletRequest request) throws Exception {
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), handler));
+        RestResultCacheInterceptor.takeLoad(request).complete(DATA);
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/products");
+    }
+
+    private static HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Controller(), Controller.class.getMethod(name));
+    }
+
+    @UseRestResult
+    static class Controller {
+
+        @CachedRestResult
+        public List<Integer> products() {
+            return Arrays.asList(1, 2, 3);
+        }
+
+        @CachedRestResult(authenticated = true)
+        public List<Integer> orders() {
+            return Arrays.asList(1, 2, 3);
+        }
+
+    }
+
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Single-flight loads, lock handling and expiry of the response cache, over an in-memory shared store
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+class RestResultCacheTest {
+
+    private static final Duration TTL = Duration.ofSeconds(10);
+
+    private static final byte[] DATA = "[1,2,3]".getBytes(StandardCharsets.UTF_8);
+
+    private final ManualTicker ticker = new ManualTicker();
+
+    private final InMemoryStore store = new InMemoryStore(ticker);
+
+    @Test
+    void concurrentRequestsOfANodeShareOneLoad() throws Exception {
+        RestResultCache cache = new RestResultCache(properties(), store, ticker);
+        RestResultCache.Lookup first = cache.lookup("products", TTL, true);
+        assertNull(first.getData());
+        assertNotNull(first.getLoad());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            Future<RestResultCache.Lookup> second = executor.submit(() -> {
+                started.countDown();
+                return cache.lookup("products", TTL, true);
+            });
+            started.await();
+            first.getLoad().complete(DATA);
+            RestResultCache.Lookup waited = second.get(5, TimeUnit.SECONDS);
+            assertArrayEquals(DATA, waited.getData());
+            assertNull(waited.getLoad());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, store.puts.get());
+        assertEquals(0, store.locks.size(), "Lock released after the load");
+    }
+
+    @Test
+    void abandonedLoadLetsTheNextRequestLoad() {
+        RestResultCache cache = new RestResultCache(properties(), store, ticker);
+        cache.lookup("products", TTL, true).getLoad().abandon();
+
+        RestResultCache.Lookup next = cache.lookup("products", TTL, true);
+        assertNull(next.getData());
+        assertNotNull(next.getLoad(), "Lock released by the abandoned load");
+    }
+
+    @Test
+    void lockHeldByAnotherNodeWaitsForItsData() throws Exception {
+        RestResultCache peer = new RestResultCache(properties(), store, ticker);
+        RestResultCache cache = new RestResultCache(properties(), store, ticker);
+        RestResultCache.Load peerLoad = peer.lookup("products", TTL, true).getLoad();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<RestResultCache.Lookup> lookup = executor.submit(() -> cache.lookup("products", TTL, true));
+            Thread.sleep(50);
+            peerLoad.complete(DATA);
+            RestResultCache.Lookup waited = lookup.get(5, TimeUnit.SECONDS);
+            assertArrayEquals(DATA, waited.getData());
+            assertNull(waited.getLoad());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, store.puts.get(), "Loaded once for both nodes");
+        assertEquals(0, store.locks.size());
+    }
+
+    @Test
+    void lockAbandonedByAnotherNodeIsTaken() throws Exception {
+        RestResultCache peer = new RestResultCache(properties(), store, ticker);
+        RestResultCache cache = new RestResultCache(properties(), store, ticker);
+        RestResultCache.Load peerLoad = peer.lookup("products", TTL, true).getLoad();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<RestResultCache.Lookup> lookup = executor.submit(() -> cache.lookup("products", TTL, true));
+            Thread.sleep(50);
+            peerLoad.abandon();
+            RestResultCache.Load load = lookup.get(5, TimeUnit.SECONDS).getLoad();
+            assertNotNull(load);
+            assertTrue(store.locks.containsKey(keyOf("products")), "Loads under the lock");
+            load.complete(DATA);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, store.locks.size());
+    }
+
+    @Test
+    void lockHeldByAnotherNodeIsWaitedForAtMostTheLockWait() {
+        RestResultProperties.Cache properties = properties();
+        properties.setLockWait(Duration.ofMillis(100));
+        RestResultCache peer = new RestResultCache(properties, store, ticker);
+        RestResultCache cache = new RestResultCache(properties, store, ticker);
+        RestResultCache.Load peerLoad = peer.lookup("products", TTL, true).getLoad();
+
+        long start = System.nanoTime();
+        RestResultCache.Lookup lookup = cache.lookup("products", TTL, true);
+        long waited = System.nanoTime() - start;
+        assertTrue(waited >= TimeUnit.MILLISECONDS.toNanos(90), "Polled the store during the lock wait");
+        assertTrue(waited < TimeUnit.SECONDS.toNanos(1), "Waited past the lock wait");
+        assertNull(lookup.getData());
+        assertNotNull(lookup.getLoad(), "Loads itself once the wait is over");
+
+        lookup.getLoad().complete(DATA);
+        assertTrue(store.locks.containsKey(keyOf("products")), "Peer lock left alone");
+        peerLoad.complete(DATA);
+        assertEquals(0, store.locks.size());
+    }
+
+    @Test
+    void dataStoredByAnotherNodeIsServed() {
+        RestResultCache peer = new RestResultCache(properties(), store, ticker);
+        RestResultCache cache = new RestResultCache(properties(), store, ticker);
+        peer.lookup("products", TTL, false).getLoad().complete(DATA);
+
+        RestResultCache.Lookup lookup = cache.lookup("products", TTL, true);
+        assertArrayEquals(DATA, lookup.getData());
+    }
+
+    @Test
+    void expiredLockIsTakenOver() {
+        RestResultCache dead = new RestResultCache(properties(), store, ticker);
+        RestResultCache cache = new RestResultCache(properties(), store, ticker);
+        RestResultCache.Load lost = dead.lookup("products", TTL, true).getLoad();
+        String lostToken = store.locks.get(keyOf("products")).value;
+
+        ticker.advance(properties().getLockTimeout().plusMillis(1));
+        RestResultCache.Load load = cache.lookup("products", TTL, true).getLoad();
+        assertNotNull(load);
+        String token = store.locks.get(keyOf("products")).value;
+        assertNotEquals(lostToken, token, "Lock taken over");
+
+        lost.complete(DATA);
+        assertEquals(token, store.locks.get(keyOf("products")).value, "A lost lock does not release its successor");
+        load.complete(DATA);
+        assertEquals(0, store.locks.size());
+    }
+
+    @Test
+    void entriesExpireAfterTheirTtl() {
+        RestResultCache cache = new RestResultCache(properties(), store, ticker);
+        cache.lookup("products", TTL, true).getLoad().complete(DATA);
+
+        ticker.advance(TTL.minusSeconds(1));
+        assertArrayEquals(DATA, cache.lookup("products", TTL, true).getData());
+
+        ticker.advance(Duration.ofSeconds(2));
+        RestResultCache.Lookup expired = cache.lookup("products", TTL, true);
+        assertNull(expired.getData());
+        assertNotNull(expired.getLoad());
+    }
+
+    @Test
+    void failingStoreDegradesToTheLocalCache() {
+        RestResultCacheStore failing = new RestResultCacheStore() {
+            @Override
+            public byte[] get(String key) {
+                throw new IllegalStateException("store down");
+            }
+
+            @Override
+            public void put(String key, byte[] data, Duration ttl) {
+                throw new IllegalStateException("store down");
+            }
+
+            @Override
+            public String tryLock(String key, Duration ttl) {
+                throw new IllegalStateException("store down");
+            }
+        };
+        RestResultCache cache = new RestResultCache(properties(), failing, ticker);
+        cache.lookup("products", TTL, true).getLoad().complete(DATA);
+
+        assertArrayEquals(DATA, cache.lookup("products", TTL, true).getData());
+    }
+
+    private static RestResultProperties.Cache properties() {
+        return new RestResultProperties.Cache();
+    }
+
+    private static String keyOf(String key) {
+        return properties().getKeyPrefix() + key;
+    }
+
+    /**
+     * Store keeping the data and the locks in memory, expiring both by the ticker like redis does
+     */
+    private static final class InMemoryStore implements RestResultCacheStore {
+
+        private final Ticker ticker;
+
+        private final Map<String, Value<byte[]>> data = new ConcurrentHashMap<>();
+
+        private final Map<String, Value<String>> locks = new ConcurrentHashMap<>();
+
+        private final AtomicInteger puts = new AtomicInteger();
+
+        InMemoryStore(Ticker ticker) {
+            this.ticker = ticker;
+        }
+
+        @Override
+        public byte[] get(String key) {
+            Value<byte[]> value = data.get(key);
+            return value == null || value.expired(ticker) ? null : value.value;
+        }
+
+        @Override
+        public void put(String key, byte[] bytes, Duration ttl) {
+            puts.incrementAndGet();
+            data.put(key, new Value<>(bytes, ticker.read() + ttl.toNanos()));
+        }
+
+        @Override
+        public synchronized String tryLock(String key, Duration ttl) {
+            Value<String> lock = locks.get(key);
+            if (lock != null && !lock.expired(ticker)) {
+                return null;
+            }
+            String token = UUID.randomUUID().toString();
+            locks.put(key, new Value<>(token, ticker.read() + ttl.toNanos()));
+            return token;
+        }
+
+        @Override
+        public synchronized void unlock(String key, String token) {
+            Value<String> lock = locks.get(key);
+            if (lock != null && lock.value.equals(token)) {
+                locks.remove(key);
+            }
+        }
+
+    }
+
+    private static final class Value<T> {
+
+        private final T value;
+
+        private final long expiresAt;
+
+        Value(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean expired(Ticker ticker) {
+            return ticker.read() - expiresAt >= 0;
+        }
+
+    }
+
+    private static final class ManualTicker implements Ticker {
+
+        private volatile long nanos = 1_000_000_000L;
+
+        void advance(Duration duration) {
+            nanos += duration.toNanos();
+        }
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+    }
+
+}
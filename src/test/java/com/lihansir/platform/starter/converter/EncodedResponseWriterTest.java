@@ -0,0 +1,154 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import com.lihansir.platform.starter.context.RestResultContextView;
+import com.lihansir.platform.starter.serializer.JacksonRestResultSerializer;
+import com.lihansir.platform.starter.serializer.RestResultSerializer;
+import com.lihansir.platform.starter.serializer.RestResultSerializers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Data-only etags, early 304 and gzip negotiation of the encoded response writer
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+class EncodedResponseWriterTest {
+
+    private static final List<Integer> DATA = numbers(1000);
+
+    private RestResultSerializer serializer;
+
+    private EncodedResponseWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        serializer = new JacksonRestResultSerializer(new ObjectMapper());
+        RestResultSerializers.set(serializer);
+        RestResultProperties.Compression compression = new RestResultProperties.Compression();
+        compression.setEnabled(true);
+        compression.setMinSize(DataSize.ofBytes(512));
+        RestResultProperties.Etag etag = new RestResultProperties.Etag();
+        etag.setEnabled(true);
+        writer = new EncodedResponseWriter(etag, compression);
+    }
+
+    @AfterEach
+    void restoreSerializer() {
+        RestResultSerializers.set(null);
+    }
+
+    @Test
+    void etagIsTakenOverTheDataOnly() throws Exception {
+        String first = write(request(), DATA, "t-1").getHeader(HttpHeaders.ETAG);
+        String second = write(request(), DATA, "t-2").getHeader(HttpHeaders.ETAG);
+        assertNotNull(first);
+        assertEquals(first, second);
+        assertNotEquals(first, write(request(), numbers(999), "t-1").getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void matchingIfNoneMatchIsAnsweredWith304() throws Exception {
+        String etag = write(request(), DATA, "t-1").getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest conditional = request();
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag.substring(2));
+        MockHttpServletResponse response = write(conditional, DATA, "t-2");
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+
+        conditional = request();
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"other\"");
+        assertEquals(200, write(conditional, DATA, "t-2").getStatus());
+    }
+
+    @Test
+    void gzipIsNegotiated() throws Exception {
+        byte[] plain = write(request(), DATA, "t-1").getContentAsByteArray();
+        assertArrayEquals(serializer.toBytes(SuccessEnvelope.succeeded(DATA, context("t-1"))), plain);
+
+        MockHttpServletRequest gzip = request();
+        gzip.addHeader(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, gzip;q=0.8");
+        MockHttpServletResponse response = write(gzip, DATA, "t-1");
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+        assertArrayEquals(plain, StreamUtils.copyToByteArray(
+                new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+    }
+
+    @Test
+    void gzipIsSkippedWhenRefusedOrSmall() throws Exception {
+        MockHttpServletRequest refused = request();
+        refused.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, br");
+        assertNull(write(refused, DATA, "t-1").getHeader(HttpHeaders.CONTENT_ENCODING));
+
+        MockHttpServletRequest small = request();
+        small.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        assertNull(write(small, numbers(3), "t-1").getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    private MockHttpServletResponse write(MockHttpServletRequest request, Object data, String traceId)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ServletServerHttpResponse serverResponse = new ServletServerHttpResponse(response);
+        writer.write(data, new ServletServerHttpRequest(request), serverResponse, context(traceId));
+        serverResponse.flush();
+        return response;
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/products");
+    }
+
+    private static List<Integer> numbers(int count) {
+        List<Integer> numbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            numbers.add(i);
+        }
+        return numbers;
+    }
+
+    private static RestResultContextView context(String traceId) {
+        return new RestResultContextView() {
+            @Override
+            public String getTraceId() {
+                return traceId;
+            }
+
+            @Override
+            public String getHost() {
+                return "node-1";
+            }
+
+            @Override
+            public int getErrorShowType() {
+                return 4;
+            }
+        };
+    }
+
+}
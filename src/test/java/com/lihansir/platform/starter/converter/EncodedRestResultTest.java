@@ -0,0 +1,146 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.converter;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.lihansir.platform.common.code.CommonCode;
+import com.lihansir.platform.starter.context.RestResultContextView;
+import com.lihansir.platform.starter.serializer.JacksonRestResultSerializer;
+import com.lihansir.platform.starter.serializer.RestResultSerializer;
+import com.lihansir.platform.starter.serializer.RestResultSerializers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pre-encoded failed responses against the output of the serializer and the escaping of the spliced values
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+class EncodedRestResultTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @AfterEach
+    void restoreSerializer() {
+        RestResultSerializers.set(null);
+    }
+
+    @Test
+    void templateMatchesTheSerializer() throws Exception {
+        RestResultSerializer serializer = use(new ObjectMapper());
+        EncodedRestResult encoded = ErrorResponseTemplates.failed(CommonCode.SERVLET_ERROR, context("t-1", "node-1"));
+
+        assertArrayEquals(serializer.toBytes(encoded.toRestResult()), encoded.toBytes());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(encoded.toBytes().length, encoded.writeTo(out));
+        assertArrayEquals(encoded.toBytes(), out.toByteArray());
+    }
+
+    @Test
+    void templateFollowsTheApplicationMapper() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .setPropertyNamingStrategy(PropertyNamingStrategy.SNAKE_CASE)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        RestResultSerializer serializer = use(objectMapper);
+        EncodedRestResult encoded = ErrorResponseTemplates.failed(CommonCode.SERVLET_ERROR, context("t-1", null));
+
+        assertArrayEquals(serializer.toBytes(encoded.toRestResult()), encoded.toBytes());
+        JsonNode json = MAPPER.readTree(encoded.toBytes());
+        assertTrue(json.has("error_code"), json.toString());
+        assertTrue(!json.has("host") && !json.has("data"), json.toString());
+    }
+
+    @Test
+    void templateIsEncodedAgainForAnotherSerializer() throws Exception {
+        use(new ObjectMapper());
+        EncodedRestResult encoded = ErrorResponseTemplates.failed(CommonCode.SERVLET_ERROR, context("t-1", "node-1"));
+        assertTrue(MAPPER.readTree(encoded.toBytes()).has("errorCode"));
+
+        use(new ObjectMapper().setPropertyNamingStrategy(PropertyNamingStrategy.SNAKE_CASE));
+        assertTrue(MAPPER.readTree(encoded.toBytes()).has("error_code"));
+    }
+
+    @Test
+    void splicedValuesAreEscaped() throws Exception {
+        RestResultSerializer serializer = use(new ObjectMapper());
+        String[] values = {"plain", "quote \" and backslash \\", "control \u0000\u0001\b\f\n\r\t\u001f\u007f",
+            "non-ascii \u00e9 \u4e2d\u6587 \u2028\u2029", "surrogate pair \uD83D\uDE00"};
+        for (String value : values) {
+            EncodedRestResult encoded = ErrorResponseTemplates.failed("A0001", "static", 2, context(value, value));
+            JsonNode json = MAPPER.readTree(encoded.toBytes());
+            assertEquals(MAPPER.readTree(serializer.toBytes(encoded.toRestResult())), json, value);
+            assertEquals(value, json.get("traceId").asText());
+            assertEquals(value, json.get("host").asText());
+            assertEquals(2, json.get("showType").asInt());
+        }
+    }
+
+    @Test
+    void loneSurrogatesAreEscaped() throws Exception {
+        use(new ObjectMapper());
+        String value = "lone \uD83D x \uDE00";
+        byte[] bytes = ErrorResponseTemplates.failed("A0001", "static", 2, context(value, value)).toBytes();
+        assertTrue(new String(bytes, StandardCharsets.UTF_8).contains("lone \\uD83D x \\uDE00"));
+        assertEquals(value, MAPPER.readTree(bytes).get("traceId").asText());
+    }
+
+    @Test
+    void detailIsEscapedInsideTheMessage() throws Exception {
+        RestResultSerializer serializer = use(new ObjectMapper());
+        String path = "/a\"b\\c\n\u00e9\uD83D\uDE00";
+        EncodedRestResult encoded = ErrorResponseTemplates.notFound(path, context("t-1", "node-1"));
+
+        JsonNode json = MAPPER.readTree(encoded.toBytes());
+        assertEquals(MAPPER.readTree(serializer.toBytes(encoded.toRestResult())), json);
+        assertEquals(ErrorResponseTemplates.notFoundMessage(path), json.get("errorMessage").asText());
+        assertEquals(CommonCode.ERROR_URL.getErrorCode(), json.get("errorCode").asText());
+    }
+
+    @Test
+    void sizeIsExact() {
+        use(new ObjectMapper());
+        String value = "\u0001\"\u00e9\uD83D\uDE00";
+        byte[] bytes = ErrorResponseTemplates.notFound(value, context(value, value)).toBytes();
+        String json = new String(bytes, StandardCharsets.UTF_8);
+        assertTrue(json.endsWith("}"), json);
+        assertEquals(json.length(), json.trim().length());
+    }
+
+    private static RestResultSerializer use(ObjectMapper objectMapper) {
+        RestResultSerializer serializer = new JacksonRestResultSerializer(objectMapper);
+        RestResultSerializers.set(serializer);
+        return serializer;
+    }
+
+    private static RestResultContextView context(String traceId, String host) {
+        return new RestResultContextView() {
+            @Override
+            public String getTraceId() {
+                return traceId;
+            }
+
+            @Override
+            public String getHost() {
+                return host;
+            }
+
+            @Override
+            public int getErrorShowType() {
+                return 4;
+            }
+        };
+    }
+
+}
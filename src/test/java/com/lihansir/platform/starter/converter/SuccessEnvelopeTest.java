@@ -0,0 +1,150 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.converter;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.lihansir.platform.common.code.CommonCode;
+import com.lihansir.platform.common.rest.RestResult;
+import com.lihansir.platform.starter.context.RestResultContextView;
+import com.lihansir.platform.starter.serializer.JacksonRestResultSerializer;
+import com.lihansir.platform.starter.serializer.RestResultSerializer;
+import com.lihansir.platform.starter.serializer.RestResultSerializers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Pre-encoded and streamed successful responses against the serialized {@code RestResult}
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+class SuccessEnvelopeTest {
+
+    private static final List<Object> DATA = Arrays.asList(1, "two", Collections.singletonMap("three", 3));
+
+    @AfterEach
+    void restoreSerializer() {
+        RestResultSerializers.set(null);
+    }
+
+    @Test
+    void encodedPathsMatchTheSerializer() throws Exception {
+        assertSameOutput(use(new ObjectMapper()), context("t-1", "node-1"), DATA);
+        assertSameOutput(use(new ObjectMapper()), context("t-\"1\"\n", "néud"), DATA);
+        assertSameOutput(use(new ObjectMapper()), context("t-1", "node-1"), Collections.emptyList());
+    }
+
+    @Test
+    void encodedPathsFollowTheApplicationMapper() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .setPropertyNamingStrategy(PropertyNamingStrategy.SNAKE_CASE)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        assertSameOutput(use(objectMapper), context("t-1", null), DATA);
+        assertSameOutput(use(new ObjectMapper().configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)),
+                context(null, "node-1"), DATA);
+    }
+
+    @Test
+    void failureAfterTheHeaderClosesTheEnvelopeAsFailed() throws Exception {
+        use(new ObjectMapper().configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingRestResult.of(failing(), context("t-1", "node-1"), 1).writeTo(out);
+
+        JsonNode json = new ObjectMapper().readTree(out.toByteArray());
+        assertFalse(json.get("success").asBoolean(), json.toString());
+        assertEquals(CommonCode.PROGRAM_EXECUTION_EXCEPTION.getErrorCode(), json.get("errorCode").asText());
+        assertEquals("[1]", json.get("data").toString());
+        assertEquals("t-1", json.get("traceId").asText());
+    }
+
+    @Test
+    void failureIsRethrownWhenTheHeaderDependsOnTheOutcome() {
+        use(new ObjectMapper().addMixIn(RestResult.class, SuccessFirst.class));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(IllegalStateException.class,
+                () -> StreamingRestResult.of(failing(), context("t-1", "node-1"), 1).writeTo(out));
+    }
+
+    private static void assertSameOutput(RestResultSerializer serializer, RestResultContextView context,
+                                         List<Object> data) throws Exception {
+        byte[] expected = serializer.toBytes(SuccessEnvelope.succeeded(data, context));
+
+        byte[] encodedData = serializer.toBytes(data);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        long written = new EncodedDataRestResult(Arrays.copyOf(encodedData, encodedData.length + 8),
+                encodedData.length, context).writeTo(encoded);
+        assertArrayEquals(expected, encoded.toByteArray());
+        assertEquals(expected.length, written);
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        written = StreamingRestResult.of(data.stream(), context, 2).writeTo(streamed);
+        assertArrayEquals(expected, streamed.toByteArray());
+        assertEquals(expected.length, written);
+    }
+
+    private static Iterator<Object> failing() {
+        return new Iterator<Object>() {
+            private int count;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Object next() {
+                if (count++ > 0) {
+                    throw new IllegalStateException("Cursor closed");
+                }
+                return 1;
+            }
+        };
+    }
+
+    @JsonPropertyOrder({"success", "data"})
+    abstract static class SuccessFirst {
+    }
+
+    private static RestResultSerializer use(ObjectMapper objectMapper) {
+        RestResultSerializer serializer = new JacksonRestResultSerializer(objectMapper);
+        RestResultSerializers.set(serializer);
+        return serializer;
+    }
+
+    private static RestResultContextView context(String traceId, String host) {
+        return new RestResultContextView() {
+            @Override
+            public String getTraceId() {
+                return traceId;
+            }
+
+            @Override
+            public String getHost() {
+                return host;
+            }
+
+            @Override
+            public int getErrorShowType() {
+                return 4;
+            }
+        };
+    }
+
+}
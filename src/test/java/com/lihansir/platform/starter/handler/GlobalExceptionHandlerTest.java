@@ -0,0 +1,91 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.handler;
+
+import com.lihansir.platform.common.code.CommonCode;
+import com.lihansir.platform.common.exception.BusinessException;
+import com.lihansir.platform.common.rest.RestResult;
+import com.lihansir.platform.starter.autoconfigure.RestResultProperties;
+import com.lihansir.platform.starter.metrics.RestResultMetrics;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindException;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+
+import javax.servlet.ServletException;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Built-in responses of the global exception handler and their replacement by the exception mappings
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+class GlobalExceptionHandlerTest {
+
+    private final ExceptionMappingRegistry registry = new ExceptionMappingRegistry();
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler(
+            new ExceptionLogger(LoggerFactory.getLogger(GlobalExceptionHandlerTest.class),
+                    new RestResultProperties.ExceptionLog()),
+            RestResultMetrics.NONE, new NotFoundHandler(new RestResultProperties.NotFound(), RestResultMetrics.NONE),
+            new ValidationErrorAggregator(), registry);
+
+    @Test
+    void builtInResponsesAreKept() {
+        MissingServletRequestParameterException missing = new MissingServletRequestParameterException("id", "Long");
+        RestResult<Object> result = handler.missingServletRequestParameterException(missing);
+        assertEquals(CommonCode.PARAM_CHECK_ERROR.getErrorCode(), result.getErrorCode());
+        assertEquals(missing.getMessage(), result.getErrorMessage());
+
+        result = handler.httpMessageNotReadableExceptionHandler(new HttpMessageNotReadableException("JSON parse error"));
+        assertEquals(CommonCode.SERVLET_ERROR.getErrorCode(), result.getErrorCode());
+        assertEquals(CommonCode.SERVLET_ERROR.getErrorMessage(), result.getErrorMessage());
+    }
+
+    @Test
+    void mappingReplacesTheBuiltInResponse() {
+        registry.register(MissingServletRequestParameterException.class, mapping("A0410", "Missing parameter"));
+        RestResult<Object> result = handler.missingServletRequestParameterException(
+                new MissingServletRequestParameterException("id", "Long"));
+        assertEquals("A0410", result.getErrorCode());
+        assertEquals("Missing parameter", result.getErrorMessage());
+        assertEquals(Integer.valueOf(2), result.getShowType());
+    }
+
+    @Test
+    void mappingOfASuperclassReplacesTheBuiltInResponse() {
+        registry.register(ServletException.class, mapping("A0405", "Not allowed"));
+        RestResult<Object> result = handler.servletExceptionHandler(new HttpRequestMethodNotSupportedException("PATCH"));
+        assertEquals("A0405", result.getErrorCode());
+        assertEquals("Not allowed", result.getErrorMessage());
+    }
+
+    @Test
+    void mappingReplacesTheResponseOfExceptionsWithACode() {
+        registry.register(BusinessException.class, mapping("B0001", "Business mapped"));
+        assertEquals("B0001", handler.businessException(new BusinessException(CommonCode.PARAM_CHECK_ERROR))
+                .getErrorCode());
+
+        registry.register(BindException.class, mapping("A0420", "Invalid form"));
+        RestResult<Object> result = handler.validatedBindException(
+                new BindException(new BeanPropertyBindingResult(Collections.emptyMap(), "form")));
+        assertEquals("A0420", result.getErrorCode());
+        assertEquals("Invalid form", result.getErrorMessage());
+    }
+
+    private static ExceptionMapping mapping(String errorCode, String errorMessage) {
+        ExceptionMapping mapping = new ExceptionMapping();
+        mapping.setErrorCode(errorCode);
+        mapping.setErrorMessage(errorMessage);
+        mapping.setShowType(2);
+        return mapping;
+    }
+
+}
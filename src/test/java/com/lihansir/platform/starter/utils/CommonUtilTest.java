@@ -0,0 +1,75 @@
+/*
+ * Copyright Li Han Holding.
+ */
+
+package com.lihansir.platform.starter.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.filter.ForwardedHeaderFilter;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Base url of a request, with and without the forwarded header filter
+ *
+ * @author <a href="https://www.lihansir.com">Li Han</a>
+ */
+class CommonUtilTest {
+
+    @Test
+    void baseUrlIsTheOneOfTheRequest() {
+        assertEquals("http://api.example.com", url("http", "api.example.com", 80));
+        assertEquals("https://api.example.com", url("https", "api.example.com", 443));
+        assertEquals("http://api.example.com:443", url("http", "api.example.com", 443));
+        assertEquals("http://[::1]:8080", url("http", "[::1]", 8080));
+    }
+
+    @Test
+    void forwardedHeadersAreIgnoredWithoutTheFilter() {
+        MockHttpServletRequest request = forwarded();
+        assertEquals("http://10.0.0.5:8080", CommonUtil.getBaseRequestUrl(request));
+    }
+
+    @Test
+    void forwardedHeadersAreHonouredThroughTheFilter() throws Exception {
+        AtomicReference<String> url = new AtomicReference<>();
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                url.set(CommonUtil.getBaseRequestUrl((HttpServletRequest)request));
+            }
+        };
+        new ForwardedHeaderFilter().doFilter(forwarded(), new MockHttpServletResponse(), chain);
+        assertEquals("https://api.example.com", url.get());
+    }
+
+    private static MockHttpServletRequest forwarded() {
+        MockHttpServletRequest request = request("http", "10.0.0.5", 8080);
+        request.addHeader("X-Forwarded-Proto", "https");
+        request.addHeader("X-Forwarded-Host", "api.example.com");
+        request.addHeader("X-Forwarded-Port", "443");
+        return request;
+    }
+
+    private static String url(String scheme, String serverName, int port) {
+        return CommonUtil.getBaseRequestUrl(request(scheme, serverName, port));
+    }
+
+    private static MockHttpServletRequest request(String scheme, String serverName, int port) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders");
+        request.setScheme(scheme);
+        request.setServerName(serverName);
+        request.setServerPort(port);
+        request.setRemoteHost("client.example.net");
+        return request;
+    }
+
+}